@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import support.ContextSwitcher;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextSwitchBenchmark {
+
+    // "cached": already in the WebView; "restart": the state a switch sees after resetApplicationStateLogic()
+    @Param({"cached", "restart"})
+    public String state;
+
+    @Benchmark
+    public int switchToWebView(StubSessionState session) {
+        if ("restart".equals(state)) {
+            ContextSwitcher.appRestarted();
+        }
+        ContextSwitcher.switchToWebView();
+        return ContextSwitcher.resetRoundTrips();
+    }
+
+    // A real round trip each way: the native switch leaves the cached WebView state, so the way back switches again
+    @Benchmark
+    public int switchToNativeAndBack(StubSessionState session) {
+        ContextSwitcher.switchToNative();
+        ContextSwitcher.switchToWebView();
+        return ContextSwitcher.resetRoundTrips();
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import support.DriverMethods;
+import support.GestureComposer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GestureBenchmark {
+
+    @Benchmark
+    public void tapOnCoordinates(StubSessionState session) {
+        DriverMethods.tapOnCoordinates(200, 400);
+    }
+
+    @Benchmark
+    public void swipeByCoord(StubSessionState session) {
+        DriverMethods.swipeByCoord(100, 300, 800, 600, "left", 0.75, 5000);
+    }
+
+    @Benchmark
+    public void dragByCoord(StubSessionState session) {
+        DriverMethods.dragByCoord(100, 300, 700, 300, 2500);
+    }
+
+    @Benchmark
+    public void tapOnCoordWithPointerInput(StubSessionState session) {
+        DriverMethods.tapOnCoordWithPointerInput(200, 400);
+    }
+
+    // Five carousel swipes and a tap in one actions call, against five mobile: swipeGesture calls above
+    @Benchmark
+    public void composedSwipes(StubSessionState session) {
+        GestureComposer gestures = DriverMethods.gestures();
+        for (int i = 0; i < 5; i++) {
+            gestures.swipe(900, 1000, 100, 1000, Duration.ofMillis(250)).pause(Duration.ofMillis(0));
+        }
+        gestures.tap(540, 1800).perform();
+    }
+}
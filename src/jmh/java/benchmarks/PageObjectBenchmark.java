@@ -0,0 +1,33 @@
+package benchmarks;
+
+import base.BaseTest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import screens.SchedulePage;
+import screens.WelcomePage;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageObjectBenchmark {
+
+    // Includes PageFactory.initElements with an AppiumFieldDecorator
+    @Benchmark
+    public WelcomePage welcomePage(StubSessionState session) {
+        return new WelcomePage(BaseTest.getDriver(), BaseTest.getSession().getWaits());
+    }
+
+    @Benchmark
+    public SchedulePage schedulePage(StubSessionState session) {
+        return new SchedulePage(BaseTest.getDriver(), BaseTest.getSession().getWaits());
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import com.aventstack.extentreports.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reports.ExtentManager;
+import reports.ExtentTestManager;
+
+import java.util.concurrent.TimeUnit;
+
+// The report only grows, so each measurement is a fixed batch of scenarios rather than a timed loop
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, batchSize = 200)
+@Measurement(iterations = 10, batchSize = 200)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Setup(Level.Trial)
+    public void redirectReport() {
+        // Must happen before ExtentTestManager attaches the reporter
+        ExtentManager.reportPath = "target/jmh/extent-report.html";
+        ExtentManager.createExtentReports();
+    }
+
+    // What Hooks writes for one passing scenario
+    @Benchmark
+    public void scenarioEntries() {
+        ExtentTestManager.startTest("Benchmark scenario | Thread: " + Thread.currentThread().threadId(), "");
+        ExtentTestManager.log(Status.INFO, "Scenario Started");
+        ExtentTestManager.assignDevice("Device Manufacturer: stub, Model: stub, OS Version: 0");
+        ExtentTestManager.log(Status.PASS, "Scenario Passed");
+        ExtentTestManager.log(Status.INFO, "Context round trips: 2");
+        ExtentTestManager.endTest();
+    }
+
+    @Benchmark
+    public void flush() {
+        ExtentTestManager.startTest("Flushed scenario", "");
+        ExtentTestManager.log(Status.INFO, "Scenario Started");
+        ExtentTestManager.endTest();
+        ExtentManager.flush();
+    }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import base.AppiumServerFarm;
+import base.BaseTest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionBenchmark {
+
+    private StubWebDriverServer server;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        server = new StubWebDriverServer().start();
+        AppiumServerFarm.attach(server.getUrl());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        AppiumServerFarm.stopAll();
+        server.stop();
+    }
+
+    // Capabilities, device and server lease, executor and page objects for one new session
+    @Benchmark
+    public void createAndQuitSession() throws Exception {
+        BaseTest.setupDriverLogic();
+        BaseTest.quitDriverLogic();
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+import base.AppiumServerFarm;
+import base.BaseTest;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// A live harness session against the stub endpoint, bound to the benchmark thread like a scenario thread
+@State(Scope.Thread)
+public class StubSessionState {
+
+    StubWebDriverServer server;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        server = new StubWebDriverServer().start();
+        AppiumServerFarm.attach(server.getUrl());
+        BaseTest.setupDriverLogic();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        BaseTest.quitDriverLogic();
+        AppiumServerFarm.stopAll();
+        server.stop();
+    }
+}
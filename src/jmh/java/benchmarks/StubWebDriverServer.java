@@ -0,0 +1,114 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Minimal in-process W3C endpoint answering just what the harness sends, so benchmarks time the harness alone
+public class StubWebDriverServer {
+
+    private static final String WEBVIEW = "WEBVIEW_com.ionicframework.conferenceapp";
+
+    private final HttpServer server;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final Map<String, String> contexts = new ConcurrentHashMap<>();
+
+    public StubWebDriverServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-webdriver");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/", this::handle);
+    }
+
+    public StubWebDriverServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public URL getUrl() {
+        try {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort()).toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            String request = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            respond(exchange, route(method, path, request));
+        }
+    }
+
+    private String route(String method, String[] path, String request) {
+        if (path.length == 1 && "status".equals(path[0])) {
+            return "{\"ready\":true,\"message\":\"stub\"}";
+        }
+        if (path.length == 1 && "session".equals(path[0]) && "POST".equals(method)) {
+            String sessionId = "stub-session-" + sessions.incrementAndGet();
+            contexts.put(sessionId, "NATIVE_APP");
+            String platform = request.contains("\"iOS\"") ? "iOS" : "Android";
+            return "{\"sessionId\":\"" + sessionId + "\",\"capabilities\":{\"platformName\":\"" + platform
+                    + "\",\"appium:automationName\":\"" + ("iOS".equals(platform) ? "XCUITest" : "UiAutomator2") + "\"}}";
+        }
+        if (path.length < 2 || !"session".equals(path[0])) {
+            return "null";
+        }
+        String sessionId = path[1];
+        if (path.length == 2 && "DELETE".equals(method)) {
+            contexts.remove(sessionId);
+            return "null";
+        }
+        String command = path.length > 2 ? path[2] : "";
+        switch (command) {
+            case "contexts":
+                return "[\"NATIVE_APP\",\"" + WEBVIEW + "\"]";
+            case "context":
+                if ("POST".equals(method)) {
+                    contexts.put(sessionId, request.contains(WEBVIEW) ? WEBVIEW : "NATIVE_APP");
+                    return "null";
+                }
+                return "\"" + contexts.getOrDefault(sessionId, "NATIVE_APP") + "\"";
+            case "element":
+                return "{\"element-6066-11e4-a52e-4f735466cecf\":\"stub-element\"}";
+            case "elements":
+                return "[{\"element-6066-11e4-a52e-4f735466cecf\":\"stub-element\"}]";
+            case "execute":
+                // In-page waits resolve immediately to the stub element
+                return path.length > 3 && "async".equals(path[3]) ? "{\"element-6066-11e4-a52e-4f735466cecf\":\"stub-element\"}" : "null";
+            default:
+                // execute/sync, actions, timeouts and element state commands
+                return path.length > 4 && "displayed".equals(path[4]) ? "true" : "null";
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String value) throws IOException {
+        byte[] response = ("{\"value\":" + value + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// One HTTP command/response pair between the driver and the Appium server.
+// Recordings are gzip-compressed binary streams: a magic header followed by one entry per exchange.
+public class RecordedExchange {
+
+    private static final int MAGIC = 0x41524531; // "ARE1"
+
+    private final long offsetMicros;
+    private final long latencyMicros;
+    private final String method;
+    private final String path;
+    private final byte[] requestBody;
+    private final int status;
+    private final byte[] responseBody;
+
+    public RecordedExchange(long offsetMicros, long latencyMicros, String method, String path,
+                            byte[] requestBody, int status, byte[] responseBody) {
+        this.offsetMicros = offsetMicros;
+        this.latencyMicros = latencyMicros;
+        this.method = method;
+        this.path = path;
+        this.requestBody = requestBody;
+        this.status = status;
+        this.responseBody = responseBody;
+    }
+
+    // Time since the recording started, so a replay can also reproduce think time between commands
+    public long getOffsetMicros() {
+        return offsetMicros;
+    }
+
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public byte[] getRequestBody() {
+        return requestBody;
+    }
+
+    public String getRequestText() {
+        return new String(requestBody, StandardCharsets.UTF_8);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public static class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+
+        public Writer(File file) throws IOException {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), 64 * 1024)));
+            out.writeInt(MAGIC);
+        }
+
+        public synchronized void write(RecordedExchange exchange) throws IOException {
+            out.writeLong(exchange.offsetMicros);
+            out.writeLong(exchange.latencyMicros);
+            out.writeUTF(exchange.method);
+            out.writeUTF(exchange.path);
+            writeBytes(exchange.requestBody);
+            out.writeShort(exchange.status);
+            writeBytes(exchange.responseBody);
+        }
+
+        private void writeBytes(byte[] data) throws IOException {
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    public static List<RecordedExchange> readAll(File file) throws IOException {
+        List<RecordedExchange> exchanges = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a command recording: " + file);
+            }
+            while (true) {
+                long offset;
+                try {
+                    offset = in.readLong();
+                } catch (EOFException end) {
+                    break;
+                }
+                long latency = in.readLong();
+                String method = in.readUTF();
+                String path = in.readUTF();
+                byte[] request = readBytes(in);
+                int status = in.readUnsignedShort();
+                byte[] response = readBytes(in);
+                exchanges.add(new RecordedExchange(offset, latency, method, path, request, status, response));
+            }
+        }
+        return exchanges;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return data;
+    }
+}
@@ -0,0 +1,128 @@
+package replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+// Sits between the driver and an Appium server and records every command with its response and timing
+public class RecordingProxy {
+
+    private static final Map<String, RecordingProxy> proxies = new ConcurrentHashMap<>();
+    private static RecordedExchange.Writer writer;
+    private static long startNanos;
+
+    private final URI target;
+    private final HttpServer server;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    private RecordingProxy(URL target) throws IOException {
+        this.target = URI.create(target.toString().replaceAll("/+$", ""));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "recording-proxy");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/", this::forward);
+        server.start();
+    }
+
+    // All proxies of a run share one recording file
+    public static synchronized void startRecording(File file) throws IOException {
+        if (writer == null) {
+            writer = new RecordedExchange.Writer(file);
+            startNanos = System.nanoTime();
+            System.out.println("--- RecordingProxy: Recording driver traffic to " + file);
+        }
+    }
+
+    public static URL forTarget(URL target) {
+        return proxies.computeIfAbsent(target.toString(), key -> {
+            try {
+                RecordingProxy proxy = new RecordingProxy(target);
+                System.out.println("--- RecordingProxy: " + proxy.getUrl() + " -> " + target);
+                return proxy;
+            } catch (IOException e) {
+                throw new RuntimeException("Could not start recording proxy for " + target, e);
+            }
+        }).getUrl();
+    }
+
+    public URL getUrl() {
+        try {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + target.getPath()).toURL();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static synchronized void stopAll() {
+        proxies.values().forEach(proxy -> proxy.server.stop(0));
+        proxies.clear();
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("!!! RecordingProxy: Could not close recording: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    private void forward(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] requestBody = body.readAllBytes();
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            if (exchange.getRequestURI().getRawQuery() != null) {
+                path += "?" + exchange.getRequestURI().getRawQuery();
+            }
+            String targetPath = path.startsWith(target.getPath()) ? path : target.getPath() + path;
+            HttpRequest request = HttpRequest.newBuilder(target.resolve(targetPath))
+                    .method(method, requestBody.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(requestBody))
+                    .header("Content-Type", "application/json; charset=utf-8")
+                    .timeout(Duration.ofMinutes(10))
+                    .build();
+
+            long sent = System.nanoTime();
+            HttpResponse<byte[]> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while forwarding " + method + " " + path, e);
+            }
+            long received = System.nanoTime();
+
+            RecordedExchange.Writer current = writer;
+            if (current != null) {
+                current.write(new RecordedExchange((sent - startNanos) / 1_000, (received - sent) / 1_000,
+                        method, path, requestBody, response.statusCode(), response.body()));
+            }
+
+            byte[] responseBody = response.body();
+            exchange.getResponseHeaders().set("Content-Type", response.headers().firstValue("Content-Type").orElse("application/json; charset=utf-8"));
+            exchange.sendResponseHeaders(response.statusCode(), responseBody.length == 0 ? -1 : responseBody.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(responseBody);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Serves a recording back as if it were the Appium server, at the recorded latency or as fast as possible.
+// Requests are answered in recorded order per command: first by method, path and body, then by method and path alone.
+public class ReplayServer {
+
+    private final HttpServer server;
+    private final boolean recordedLatency;
+    private final Map<String, Deque<RecordedExchange>> byBody = new HashMap<>();
+    private final Map<String, Deque<RecordedExchange>> byPath = new HashMap<>();
+    private final Map<String, RecordedExchange> lastByPath = new HashMap<>();
+    private int misses;
+
+    public ReplayServer(File recording, int port, boolean recordedLatency) throws IOException {
+        this.recordedLatency = recordedLatency;
+        List<RecordedExchange> exchanges = RecordedExchange.readAll(recording);
+        for (RecordedExchange exchange : exchanges) {
+            byBody.computeIfAbsent(bodyKey(exchange.getMethod(), exchange.getPath(), exchange.getRequestText()), key -> new ArrayDeque<>()).add(exchange);
+            byPath.computeIfAbsent(pathKey(exchange.getMethod(), exchange.getPath()), key -> new ArrayDeque<>()).add(exchange);
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "replay-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/", this::serve);
+        System.out.println("--- ReplayServer: Loaded " + exchanges.size() + " exchange(s) from " + recording
+                + (recordedLatency ? " (recorded latency)" : " (no delay)"));
+    }
+
+    public ReplayServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        System.out.println("--- ReplayServer: Stopped. Requests without a recorded answer: " + misses);
+    }
+
+    public URL getUrl() {
+        try {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort()).toURL();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            String request = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            if (exchange.getRequestURI().getRawQuery() != null) {
+                path += "?" + exchange.getRequestURI().getRawQuery();
+            }
+            RecordedExchange recorded = next(method, path, request);
+            if (recorded == null) {
+                respond(exchange, 404, ("{\"value\":{\"error\":\"unknown command\",\"message\":\"No recorded response for "
+                        + method + " " + path + "\",\"stacktrace\":\"\"}}").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (recordedLatency) {
+                try {
+                    TimeUnit.MICROSECONDS.sleep(recorded.getLatencyMicros());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            respond(exchange, recorded.getStatus(), recorded.getResponseBody());
+        }
+    }
+
+    private synchronized RecordedExchange next(String method, String path, String request) {
+        Deque<RecordedExchange> exact = byBody.get(bodyKey(method, path, request));
+        Deque<RecordedExchange> loose = byPath.get(pathKey(method, path));
+        RecordedExchange recorded = exact != null && !exact.isEmpty() ? exact.poll() : null;
+        if (recorded != null) {
+            if (loose != null) {
+                loose.remove(recorded);
+            }
+        } else if (loose != null && !loose.isEmpty()) {
+            recorded = loose.poll();
+            byBody.get(bodyKey(recorded.getMethod(), recorded.getPath(), recorded.getRequestText())).remove(recorded);
+        } else {
+            // Recording exhausted for this command: polls repeat their last answer
+            recorded = lastByPath.get(pathKey(method, path));
+        }
+        if (recorded == null) {
+            misses++;
+        } else {
+            lastByPath.put(pathKey(method, path), recorded);
+        }
+        return recorded;
+    }
+
+    private static String pathKey(String method, String path) {
+        return method + " " + path;
+    }
+
+    private static String bodyKey(String method, String path, String body) {
+        return method + " " + path + " " + body;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Standalone use: java replay.ReplayServer <recording> [port] [recorded|fast]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayServer <recording> [port] [recorded|fast]");
+            System.exit(2);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 4724;
+        boolean recordedLatency = args.length < 3 || !"fast".equalsIgnoreCase(args[2]);
+        ReplayServer replay = new ReplayServer(new File(args[0]), port, recordedLatency).start();
+        System.out.println("--- ReplayServer: Serving at " + replay.getUrl());
+    }
+}
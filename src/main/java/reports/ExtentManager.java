@@ -6,19 +6,95 @@ import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ExtentManager {
-    public static final ExtentReports extentReports = new ExtentReports();
-    public static String reportPath = String.format("./extent-reports/extent-report-%s.html",
-            new SimpleDateFormat("yyyyMMdd-HHmmss").format(Date.from(Instant.now())));
+    // Replaced by newReport(), so read it through createExtentReports() rather than keeping a reference
+    public static volatile ExtentReports extentReports = new ExtentReports();
+    public static volatile String reportPath = newReportPath();
 
+    // Guards every change to the report model and every flush, which iterates over it
+    static final Object lock = new Object();
+    private static final AtomicBoolean attached = new AtomicBoolean();
+    private static final AtomicBoolean dirty = new AtomicBoolean();
+    private static ScheduledExecutorService flusher;
+
+    // Safe to call any number of times: the run has exactly one Spark reporter
     public static ExtentReports createExtentReports() {
+        if (attached.compareAndSet(false, true)) {
+            synchronized (lock) {
+                attachReporter();
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(ExtentManager::flush, "extent-final-flush"));
+        }
+        return extentReports;
+    }
+
+    // Starts an empty report in a new file, e.g. for each run of the runner daemon; the previous one is written out first
+    public static void newReport() {
+        flush();
+        synchronized (lock) {
+            String path = newReportPath();
+            reportPath = path.equals(reportPath) ? path.replace(".html", "-" + System.currentTimeMillis() + ".html") : path;
+            extentReports = new ExtentReports();
+            if (attached.get()) {
+                attachReporter();
+            }
+        }
+    }
+
+    private static String newReportPath() {
+        return String.format("./extent-reports/extent-report-%s.html",
+                new SimpleDateFormat("yyyyMMdd-HHmmss").format(Date.from(Instant.now())));
+    }
+
+    private static void attachReporter() {
         ExtentSparkReporter reporter = new ExtentSparkReporter(reportPath);
         reporter.config().setReportName("Extent Report - Amtrac app");
         extentReports.attachReporter(reporter);
         extentReports.setSystemInfo("OS", String.format("%s %s", System.getProperty("os.name"), System.getProperty("os.version")));
         extentReports.setSystemInfo("Author", "Zalunina");
+    }
 
-        return extentReports;
+    static void markDirty() {
+        dirty.set(true);
+    }
+
+    // Writes the report now if anything changed since the last flush
+    public static void flush() {
+        if (dirty.getAndSet(false)) {
+            synchronized (lock) {
+                extentReports.flush();
+            }
+        }
+    }
+
+    public static synchronized void startBackgroundFlush(long intervalSeconds) {
+        createExtentReports();
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "extent-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(() -> {
+                try {
+                    flush();
+                } catch (Exception e) {
+                    System.err.println("!!! ExtentManager: Background flush failed: " + e.getMessage());
+                }
+            }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public static synchronized void stopBackgroundFlush() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher = null;
+        }
+        flush();
     }
 }
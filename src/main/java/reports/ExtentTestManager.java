@@ -1,18 +1,63 @@
 package reports;
 
-import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
 
 public class ExtentTestManager {
 
-    public static ExtentReports extent = ExtentManager.createExtentReports();
-    public static ExtentTest test;
+    static {
+        ExtentManager.createExtentReports();
+    }
+    // Each scenario thread logs to its own test
+    private static final ThreadLocal<ExtentTest> test = new ThreadLocal<>();
 
     public static ExtentTest getTest() {
-        return test;
+        return test.get();
+    }
+
+    public static ExtentTest startTest(String testName, String desc) {
+        synchronized (ExtentManager.lock) {
+            ExtentTest started = ExtentManager.createExtentReports().createTest(testName, desc);
+            test.set(started);
+            ExtentManager.markDirty();
+            return started;
+        }
+    }
+
+    public static void endTest() {
+        test.remove();
+    }
+
+    public static void log(Status status, String details) {
+        ExtentTest current = test.get();
+        if (current == null) {
+            return;
+        }
+        synchronized (ExtentManager.lock) {
+            current.log(status, details);
+            ExtentManager.markDirty();
+        }
+    }
+
+    public static void addScreenCaptureFromPath(String path, String title) {
+        ExtentTest current = test.get();
+        if (current == null) {
+            return;
+        }
+        synchronized (ExtentManager.lock) {
+            current.addScreenCaptureFromPath(path, title);
+            ExtentManager.markDirty();
+        }
     }
 
-    public static void startTest(String testName, String desc) {
-        test = extent.createTest(testName, desc);
+    public static void assignDevice(String device) {
+        ExtentTest current = test.get();
+        if (current == null) {
+            return;
+        }
+        synchronized (ExtentManager.lock) {
+            current.assignDevice(device);
+            ExtentManager.markDirty();
+        }
     }
 }
@@ -0,0 +1,288 @@
+package reports;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.AndroidStartScreenRecordingOptions;
+import io.appium.java_client.ios.IOSDriver;
+import io.appium.java_client.ios.IOSStartScreenRecordingOptions;
+import io.appium.java_client.screenrecording.CanRecordScreen;
+import support.TestProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// The screen is recorded in short segments, rotated between steps, and only the last few seconds are kept in memory.
+// A passing scenario just drops them; a failing one has them written, stitched and compressed on a background thread.
+public class ScreenRecorder {
+
+    public static final String VIDEO_DIR = "videos";
+    // Upper bound for one segment if no step ends in time, e.g. while a session waits in the pool
+    private static final Duration TIME_LIMIT = Duration.ofMinutes(10);
+    private static final int ANDROID_BIT_RATE = 2_000_000;
+
+    private static final Map<String, Recording> recordings = new ConcurrentHashMap<>();
+    private static final List<Future<?>> pending = new CopyOnWriteArrayList<>();
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "video-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static Boolean ffmpegAvailable;
+
+    private static class Segment {
+        final String base64;
+        final long millis;
+
+        Segment(String base64, long millis) {
+            this.base64 = base64;
+            this.millis = millis;
+        }
+    }
+
+    // One per session, since the segment being recorded belongs to the device, not to the scenario thread
+    private static class Recording {
+        final Deque<Segment> segments = new ArrayDeque<>();
+        long startedAt;
+        boolean running;
+        boolean unsupported;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(TestProperties.getProperty("screenRecording", "true"));
+    }
+
+    private static long segmentMillis() {
+        return Long.parseLong(TestProperties.getProperty("recordingSegmentSeconds", "10")) * 1000;
+    }
+
+    private static long keepMillis() {
+        return Long.parseLong(TestProperties.getProperty("recordingKeepSeconds", "30")) * 1000;
+    }
+
+    // Drops what the previous scenario left in the buffer; a segment already running carries on
+    public static void startScenario(AppiumDriver driver) {
+        Recording recording = recordingOf(driver);
+        if (recording == null) {
+            return;
+        }
+        recording.segments.clear();
+        if (!recording.running) {
+            start(driver, recording);
+        } else if (System.currentTimeMillis() - recording.startedAt >= segmentMillis()) {
+            rotate(driver, recording, false);
+        }
+    }
+
+    // Called after every step; a round trip to the device only when the current segment is due
+    public static void onStepFinished(AppiumDriver driver) {
+        Recording recording = recordingOf(driver);
+        if (recording != null && recording.running && System.currentTimeMillis() - recording.startedAt >= segmentMillis()) {
+            rotate(driver, recording, true);
+        }
+    }
+
+    // Returns the video path relative to the Extent report for a failed scenario, null otherwise
+    public static String finishScenario(AppiumDriver driver, String scenario, boolean failed) {
+        Recording recording = recordingOf(driver);
+        if (recording == null || !recording.running) {
+            return null;
+        }
+        if (!failed) {
+            recording.segments.clear();
+            return null;
+        }
+        String last = stop(driver, recording);
+        if (last != null) {
+            recording.segments.add(new Segment(last, System.currentTimeMillis() - recording.startedAt));
+        }
+        List<Segment> segments = new ArrayList<>(recording.segments);
+        recording.segments.clear();
+        recordings.remove(driver.getSessionId().toString());
+        if (segments.isEmpty()) {
+            return null;
+        }
+
+        String name = scenario.replaceAll("[^A-Za-z0-9._-]+", "_") + "-" + System.currentTimeMillis();
+        File videos = new File(ScreenshotPipeline.getReportDir(), VIDEO_DIR);
+        boolean stitch = hasFfmpeg();
+        String link = VIDEO_DIR + "/" + (stitch ? name + ".mp4" : name);
+        pending.add(executor.submit(() -> persist(segments, videos, name, stitch)));
+        long seconds = segments.stream().mapToLong(segment -> segment.millis).sum() / 1000;
+        System.out.println("--- ScreenRecorder: Keeping " + segments.size() + " segment(s), about " + seconds + " s, for " + scenario + ": " + link);
+        return link;
+    }
+
+    // Called before a session is quit: its recording is of no use to any scenario, so it is stopped and dropped
+    public static void sessionClosing(AppiumDriver driver) {
+        if (driver == null || driver.getSessionId() == null) {
+            return;
+        }
+        Recording recording = recordings.remove(driver.getSessionId().toString());
+        if (recording == null || !recording.running) {
+            return;
+        }
+        recording.running = false;
+        try {
+            ((CanRecordScreen) driver).stopRecordingScreen();
+        } catch (Exception e) {
+            System.err.println("!!! ScreenRecorder: Could not stop recording of closing session: " + e.getMessage());
+        }
+    }
+
+    private static Recording recordingOf(AppiumDriver driver) {
+        if (!isEnabled() || driver == null || driver.getSessionId() == null || !(driver instanceof CanRecordScreen)) {
+            return null;
+        }
+        Recording recording = recordings.computeIfAbsent(driver.getSessionId().toString(), key -> new Recording());
+        return recording.unsupported ? null : recording;
+    }
+
+    private static void rotate(AppiumDriver driver, Recording recording, boolean keep) {
+        long millis = System.currentTimeMillis() - recording.startedAt;
+        String data = stop(driver, recording);
+        if (keep && data != null) {
+            recording.segments.add(new Segment(data, millis));
+            trim(recording.segments);
+        }
+        if (!recording.unsupported) {
+            start(driver, recording);
+        }
+    }
+
+    // Oldest segments go once the rest still cover the keep window
+    private static void trim(Deque<Segment> segments) {
+        long total = segments.stream().mapToLong(segment -> segment.millis).sum();
+        while (segments.size() > 1 && total - segments.peekFirst().millis >= keepMillis()) {
+            total -= segments.pollFirst().millis;
+        }
+    }
+
+    private static void start(AppiumDriver driver, Recording recording) {
+        try {
+            if (driver instanceof AndroidDriver) {
+                ((CanRecordScreen) driver).startRecordingScreen(AndroidStartScreenRecordingOptions.startScreenRecordingOptions()
+                        .withBitRate(ANDROID_BIT_RATE).withTimeLimit(TIME_LIMIT).enableForcedRestart());
+            } else if (driver instanceof IOSDriver) {
+                ((CanRecordScreen) driver).startRecordingScreen(IOSStartScreenRecordingOptions.startScreenRecordingOptions()
+                        .withVideoType("libx264").withVideoQuality(IOSStartScreenRecordingOptions.VideoQuality.LOW)
+                        .withTimeLimit(TIME_LIMIT).enableForcedRestart());
+            } else {
+                ((CanRecordScreen) driver).startRecordingScreen();
+            }
+            recording.startedAt = System.currentTimeMillis();
+            recording.running = true;
+        } catch (Exception e) {
+            System.err.println("!!! ScreenRecorder: Could not start recording, disabled for this session: " + e.getMessage());
+            recording.unsupported = true;
+            recording.running = false;
+        }
+    }
+
+    private static String stop(AppiumDriver driver, Recording recording) {
+        recording.running = false;
+        try {
+            String data = ((CanRecordScreen) driver).stopRecordingScreen();
+            return data == null || data.isEmpty() ? null : data;
+        } catch (Exception e) {
+            System.err.println("!!! ScreenRecorder: Could not stop recording, disabled for this session: " + e.getMessage());
+            recording.unsupported = true;
+            return null;
+        }
+    }
+
+    private static synchronized boolean hasFfmpeg() {
+        if (ffmpegAvailable == null) {
+            try {
+                Process process = new ProcessBuilder(ffmpeg(), "-version").redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+                ffmpegAvailable = process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+            } catch (IOException e) {
+                ffmpegAvailable = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (!ffmpegAvailable) {
+                System.out.println("--- ScreenRecorder: ffmpeg not found, failed scenarios keep their raw segments.");
+            }
+        }
+        return ffmpegAvailable;
+    }
+
+    private static String ffmpeg() {
+        return TestProperties.getProperty("ffmpegPath", "ffmpeg");
+    }
+
+    private static void persist(List<Segment> segments, File videos, String name, boolean stitch) {
+        File dir = new File(videos, name);
+        try {
+            Files.createDirectories(dir.toPath());
+            StringBuilder list = new StringBuilder();
+            for (int i = 0; i < segments.size(); i++) {
+                String file = String.format("segment-%02d.mp4", i);
+                Files.write(new File(dir, file).toPath(), Base64.getMimeDecoder().decode(segments.get(i).base64));
+                list.append("file '").append(file).append("'\n");
+            }
+            if (!stitch) {
+                return;
+            }
+            File concat = new File(dir, "segments.txt");
+            Files.writeString(concat.toPath(), list, StandardCharsets.UTF_8);
+            File target = new File(videos, name + ".mp4");
+            // Re-encoding joins segments with different timelines and brings device bitrates down to report size
+            Process process = new ProcessBuilder(ffmpeg(), "-y", "-loglevel", "error", "-f", "concat", "-safe", "0",
+                    "-i", concat.getAbsolutePath(), "-an", "-c:v", "libx264", "-preset", "veryfast", "-crf", "32",
+                    "-movflags", "+faststart", target.getAbsolutePath())
+                    .redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (process.waitFor() == 0 && target.isFile()) {
+                deleteRecursively(dir);
+            } else {
+                System.err.println("!!! ScreenRecorder: ffmpeg could not stitch " + dir + ", keeping the segments: " + output.trim());
+            }
+        } catch (IOException e) {
+            System.err.println("!!! ScreenRecorder: Could not write " + dir + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteRecursively(File dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // Waits for queued videos, e.g. before the report is flushed at the end of the run
+    public static void awaitPending(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Future<?> video : pending) {
+            try {
+                video.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                System.err.println("!!! ScreenRecorder: Video write not finished: " + e.getMessage());
+            }
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package reports;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ScreenshotPipeline {
+
+    private static final int MAX_HEIGHT = 960;
+    private static final float JPEG_QUALITY = 0.7f;
+    public static final String SCREENSHOT_DIR = "screenshots";
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "screenshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Frame digest -> pending or finished write; identical frames share one file
+    private static final Map<String, Future<?>> frames = new ConcurrentHashMap<>();
+
+    public static File getReportDir() {
+        return new File(ExtentManager.reportPath).getAbsoluteFile().getParentFile();
+    }
+
+    // Grabs raw PNG bytes on the calling thread; decoding, scaling and writing happen in the background.
+    // Returns the file path relative to the Extent report, usable as a link right away.
+    public static String capture(TakesScreenshot driver) {
+        return submit(driver.getScreenshotAs(OutputType.BYTES));
+    }
+
+    public static String submit(byte[] png) {
+        String name = digest(png) + ".jpg";
+        File target = new File(new File(getReportDir(), SCREENSHOT_DIR), name);
+        frames.computeIfAbsent(name, key -> executor.submit(() -> write(png, target)));
+        return SCREENSHOT_DIR + "/" + name;
+    }
+
+    public static File resolve(String relativePath) {
+        return new File(getReportDir(), relativePath);
+    }
+
+    private static void write(byte[] png, File target) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+            if (source == null) {
+                throw new IOException("Screenshot is not a readable image");
+            }
+            BufferedImage scaled = downscale(source);
+            Files.createDirectories(target.getParentFile().toPath());
+            File temp = new File(target.getPath() + ".tmp");
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(scaled, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("!!! ScreenshotPipeline: Could not write " + target + ": " + e.getMessage());
+        }
+    }
+
+    // JPEG has no alpha channel, so the frame is always redrawn onto an RGB canvas
+    private static BufferedImage downscale(BufferedImage source) {
+        double ratio = Math.min(1.0, (double) MAX_HEIGHT / source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(data);
+            return HexFormat.of().formatHex(hash, 0, 10);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    // Waits for queued writes, e.g. before the report is flushed at the end of the run
+    public static void awaitPending(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Future<?> frame : frames.values()) {
+            try {
+                frame.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                System.err.println("!!! ScreenshotPipeline: Screenshot write not finished: " + e.getMessage());
+            }
+        }
+    }
+}
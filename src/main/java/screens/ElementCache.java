@@ -0,0 +1,60 @@
+package screens;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Elements already resolved in this session, per context and locator.
+// Entries are trusted until the element goes stale or the app restarts.
+public class ElementCache {
+
+    private final Map<String, WebElement> entries = new HashMap<>();
+    private int hits;
+    private int misses;
+    private int stale;
+
+    // The context is read once by the caller, so a lookup never costs a context round trip of its own
+    public synchronized WebElement get(String context, By locator) {
+        WebElement element = entries.get(key(context, locator));
+        if (element == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return element;
+    }
+
+    public synchronized void put(String context, By locator, WebElement element) {
+        entries.put(key(context, locator), element);
+    }
+
+    // The element was found stale or no longer usable; the next lookup resolves it again
+    public synchronized void evict(String context, By locator) {
+        if (entries.remove(key(context, locator)) != null) {
+            stale++;
+        }
+    }
+
+    // Every cached reference belongs to the previous app instance after a restart
+    public synchronized void invalidate() {
+        entries.clear();
+    }
+
+    // Counters are per scenario while entries live as long as the pooled session
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        stale = 0;
+    }
+
+    private static String key(String context, By locator) {
+        return context + "|" + locator;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d hit(s), %d miss(es), %d stale", hits, misses, stale);
+    }
+}
@@ -0,0 +1,324 @@
+package screens;
+
+import io.appium.java_client.AppiumBy;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+import support.ContextSwitcher;
+import support.TestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Written as XPath, resolved with the fastest strategy for the current context:
+// CSS in the WebView, accessibility id / UiAutomator / predicate in native, the XPath itself only as a last resort
+public class Locator extends By {
+
+    private static final Pattern STEP = Pattern.compile("(//|/)([A-Za-z][\\w-]*|\\*)((?:\\[[^\\]]+\\])*)");
+    private static final Pattern PREDICATE = Pattern.compile("\\[([^\\]]+)\\]");
+    private static final Pattern AND = Pattern.compile("\\s+and\\s+");
+    // A quoted value stops at its closing quote, so "@a='x' or @b='y'" is not read as one value
+    private static final Pattern EQUALS = Pattern.compile("@([\\w-]+)\\s*=\\s*(['\"])((?:(?!\\2).)*)\\2");
+    private static final Pattern PRESENT = Pattern.compile("@([\\w-]+)");
+    private static final Pattern FUNCTION = Pattern.compile("(contains|starts-with)\\(\\s*@([\\w-]+)\\s*,\\s*(['\"])((?:(?!\\3).)*)\\3\\s*\\)");
+    private static final Pattern TEXT = Pattern.compile("(?:text\\(\\)|\\.)\\s*=\\s*(['\"])(.*?)\\1");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][\\w-]*");
+
+    private static final Map<String, LocatorStats> stats = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String xpath;
+    private final String css;
+    private final By android;
+    private final By ios;
+
+    private Locator(String name, String xpath, By android, By ios) {
+        this.name = name;
+        this.xpath = xpath;
+        this.css = toCss(xpath);
+        this.android = android;
+        this.ios = ios;
+        if (css == null) {
+            System.out.println("--- Locator: " + name + " has no CSS equivalent, the WebView will use XPath: " + xpath);
+        }
+    }
+
+    public static Locator xpath(String name, String xpath) {
+        return new Locator(name, xpath, nativeAndroid(xpath), nativeIos(xpath));
+    }
+
+    // Explicit native strategies for elements whose XPath attributes have no native counterpart
+    public Locator onAndroid(By locator) {
+        return new Locator(name, xpath, locator, ios);
+    }
+
+    public Locator onIos(By locator) {
+        return new Locator(name, xpath, android, locator);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getXpath() {
+        return xpath;
+    }
+
+    public String getCss() {
+        return css;
+    }
+
+    @Override
+    public List<WebElement> findElements(SearchContext context) {
+        By strategy = strategyFor(context);
+        long start = System.nanoTime();
+        List<WebElement> found = context.findElements(strategy);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        stats.computeIfAbsent(name + " [" + describe(strategy) + "]", key -> new LocatorStats()).add(elapsedMicros);
+        long slowMs = Long.parseLong(TestProperties.getProperty("slowLocatorMs", "300"));
+        if (elapsedMicros / 1_000 > slowMs) {
+            System.err.println("!!! Locator: " + name + " took " + elapsedMicros / 1_000 + " ms with " + strategy);
+        }
+        return found;
+    }
+
+    By strategyFor(SearchContext context) {
+        if (inWebView()) {
+            return webViewStrategy();
+        }
+        Platform platform = platformOf(context);
+        if (platform != null && platform.is(Platform.IOS) && ios != null) {
+            return ios;
+        }
+        if (platform != null && platform.is(Platform.ANDROID) && android != null) {
+            return android;
+        }
+        return By.xpath(xpath);
+    }
+
+    // XPath only when the path has no CSS equivalent
+    By webViewStrategy() {
+        return css != null ? By.cssSelector(css) : By.xpath(xpath);
+    }
+
+    static boolean inWebView() {
+        return isWebView(ContextSwitcher.getCurrentContext());
+    }
+
+    static boolean isWebView(String context) {
+        if (context == null) {
+            return false;
+        }
+        String lower = context.toLowerCase();
+        return lower.contains("webview") || lower.contains("chromium");
+    }
+
+    private static Platform platformOf(SearchContext context) {
+        SearchContext driver = context;
+        if (context instanceof WrapsDriver) {
+            driver = ((WrapsDriver) context).getWrappedDriver();
+        }
+        if (driver instanceof HasCapabilities) {
+            return ((HasCapabilities) driver).getCapabilities().getPlatformName();
+        }
+        return null;
+    }
+
+    // Only attribute-based paths compile: //tag[@a="v" and contains(@b,"w")]//child. Text and position predicates do not.
+    static String toCss(String xpath) {
+        StringBuilder css = new StringBuilder();
+        Matcher step = STEP.matcher(xpath.trim());
+        int end = 0;
+        while (step.find()) {
+            if (step.start() != end) {
+                return null;
+            }
+            end = step.end();
+            if (css.length() > 0) {
+                css.append(step.group(1).equals("//") ? " " : " > ");
+            } else if (step.group(1).equals("/")) {
+                return null;
+            }
+            css.append(step.group(2));
+            Matcher predicate = PREDICATE.matcher(step.group(3));
+            while (predicate.find()) {
+                for (String condition : conditions(predicate.group(1))) {
+                    String selector = conditionToCss(condition.trim());
+                    if (selector == null) {
+                        return null;
+                    }
+                    css.append(selector);
+                }
+            }
+        }
+        if (end == 0 || end != xpath.trim().length()) {
+            return null;
+        }
+        return css.toString().replaceAll("^\\*(?=[#\\[])", "");
+    }
+
+    // The predicate's "and"-joined conditions; an "and" inside a quoted value is part of the value
+    private static List<String> conditions(String predicate) {
+        List<String> conditions = new ArrayList<>();
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < predicate.length(); i++) {
+            char c = predicate.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (Character.isWhitespace(c)) {
+                Matcher and = AND.matcher(predicate).region(i, predicate.length());
+                if (and.lookingAt()) {
+                    conditions.add(predicate.substring(start, i));
+                    start = and.end();
+                    i = and.end() - 1;
+                }
+            }
+        }
+        conditions.add(predicate.substring(start));
+        return conditions;
+    }
+
+    private static String conditionToCss(String condition) {
+        Matcher equals = EQUALS.matcher(condition);
+        if (equals.matches()) {
+            if (equals.group(1).equals("id") && IDENTIFIER.matcher(equals.group(3)).matches()) {
+                return "#" + equals.group(3);
+            }
+            return "[" + equals.group(1) + "=" + cssString(equals.group(3)) + "]";
+        }
+        Matcher function = FUNCTION.matcher(condition);
+        if (function.matches()) {
+            String operator = function.group(1).equals("contains") ? "*=" : "^=";
+            return "[" + function.group(2) + operator + cssString(function.group(4)) + "]";
+        }
+        if (PRESENT.matcher(condition).matches()) {
+            return "[" + condition.substring(1) + "]";
+        }
+        return null;
+    }
+
+    // XPath string literals have no escapes, so a backslash or quote in the value must be escaped for CSS
+    private static String cssString(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    // In the native tree a WebView node exposes the HTML id as resource-id and aria-label as content-desc
+    private static By nativeAndroid(String xpath) {
+        String id = lastValue(xpath, "id");
+        if (id != null) {
+            return AppiumBy.androidUIAutomator("new UiSelector().resourceId(\"" + id + "\")");
+        }
+        String label = lastValue(xpath, "aria-label");
+        if (label != null) {
+            return AppiumBy.accessibilityId(label);
+        }
+        String text = lastText(xpath);
+        if (text != null) {
+            return AppiumBy.androidUIAutomator("new UiSelector().text(\"" + text + "\")");
+        }
+        return null;
+    }
+
+    // WKWebView does not expose HTML ids, only the accessible name and text
+    private static By nativeIos(String xpath) {
+        String label = lastValue(xpath, "aria-label");
+        if (label != null) {
+            return AppiumBy.accessibilityId(label);
+        }
+        String text = lastText(xpath);
+        if (text != null) {
+            return AppiumBy.iOSNsPredicateString("label == \"" + text + "\"");
+        }
+        return null;
+    }
+
+    // Only the last step identifies the element itself; ancestors' attributes do not carry over
+    private static String lastValue(String xpath, String attribute) {
+        String step = xpath.substring(xpath.lastIndexOf('/') + 1);
+        Matcher equals = EQUALS.matcher(step);
+        while (equals.find()) {
+            if (equals.group(1).equals(attribute)) {
+                return equals.group(3);
+            }
+        }
+        return null;
+    }
+
+    private static String lastText(String xpath) {
+        Matcher text = TEXT.matcher(xpath.substring(xpath.lastIndexOf('/') + 1));
+        return text.find() ? text.group(2).trim() : null;
+    }
+
+    private static String describe(By strategy) {
+        String description = strategy.toString();
+        int colon = description.indexOf(':');
+        return colon < 0 ? description : description.substring(0, colon);
+    }
+
+    public static class LocatorStats {
+        private int count;
+        private long totalMicros;
+        private long maxMicros;
+
+        synchronized void add(long micros) {
+            count++;
+            totalMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        public synchronized long getMaxMs() {
+            return maxMicros / 1_000;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%d lookup(s), avg %d ms, max %d ms", count, count == 0 ? 0 : totalMicros / count / 1_000, maxMicros / 1_000);
+        }
+    }
+
+    // Slowest first, so the locators worth rewriting are at the top
+    public static List<Map.Entry<String, LocatorStats>> getStats() {
+        List<Map.Entry<String, LocatorStats>> sorted = new ArrayList<>(stats.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().getMaxMs(), a.getValue().getMaxMs()));
+        return sorted;
+    }
+
+    public static void resetStats() {
+        stats.clear();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Locator)) {
+            return false;
+        }
+        Locator locator = (Locator) other;
+        return name.equals(locator.name) && xpath.equals(locator.xpath)
+                && Objects.equals(android, locator.android) && Objects.equals(ios, locator.ios);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, xpath);
+    }
+
+    @Override
+    public String toString() {
+        return "Locator " + name + ": " + xpath;
+    }
+}
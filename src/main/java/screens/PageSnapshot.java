@@ -0,0 +1,266 @@
+package screens;
+
+import io.appium.java_client.AppiumDriver;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// One round trip for the whole screen: the page is read once and every check after that runs locally.
+// In the WebView the DOM is cloned with each element's visibility and rendered text, since those need layout.
+public class PageSnapshot {
+
+    private static final String WEB_VISIBLE = "data-snap-visible";
+    private static final String WEB_TEXT = "data-snap-text";
+
+    private static final String SNAPSHOT_SCRIPT =
+            "var source = document.documentElement.getElementsByTagName('*');" +
+            "var clone = document.documentElement.cloneNode(true);" +
+            "var copies = clone.getElementsByTagName('*');" +
+            "for (var i = 0; i < source.length && i < copies.length; i++) {" +
+            "  var el = source[i], copy = copies[i], style = window.getComputedStyle(el);" +
+            "  var visible = el.getClientRects().length > 0 && style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0';" +
+            "  copy.setAttribute('" + WEB_VISIBLE + "', visible ? 'true' : 'false');" +
+            "  var ownText = false;" +
+            "  for (var n = el.firstChild; n; n = n.nextSibling) { if (n.nodeType === 3 && n.nodeValue.trim()) { ownText = true; break; } }" +
+            "  if (ownText && el.innerText) { copy.setAttribute('" + WEB_TEXT + "', el.innerText); }" +
+            "}" +
+            "var scripts = clone.querySelectorAll('script, style');" +
+            "for (var j = 0; j < scripts.length; j++) { scripts[j].parentNode.removeChild(scripts[j]); }" +
+            "return new XMLSerializer().serializeToString(clone);";
+
+    private static final Pattern CSS_STEP = Pattern.compile("([A-Za-z][\\w-]*|\\*)?((?:#[\\w-]+|\\.[\\w-]+|\\[[^\\]]+\\])*)");
+    private static final Pattern CSS_ID = Pattern.compile("#([\\w-]+)");
+    private static final Pattern CSS_PART = Pattern.compile("#([\\w-]+)|\\.([\\w-]+)|\\[([\\w-]+)(?:([*^]?=)\"?([^\"\\]]*)\"?)?\\]");
+
+    private final Document document;
+    private final boolean web;
+    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private final Map<String, XPathExpression> compiled = new HashMap<>();
+    private final Map<String, Element> byId = new HashMap<>();
+    private final Map<String, List<Element>> byTag = new HashMap<>();
+
+    PageSnapshot(String source, boolean web) {
+        this.web = web;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(false);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            document = builder.parse(new InputSource(new StringReader(source)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not parse page snapshot: " + e.getMessage(), e);
+        }
+        index(document.getDocumentElement());
+    }
+
+    public static PageSnapshot take(AppiumDriver driver) {
+        long start = System.nanoTime();
+        boolean web = Locator.inWebView();
+        String source = web ? String.valueOf(driver.executeScript(SNAPSHOT_SCRIPT)) : driver.getPageSource();
+        PageSnapshot snapshot = new PageSnapshot(source, web);
+        System.out.println("--- PageSnapshot: " + snapshot.byTag.values().stream().mapToInt(List::size).sum() + " element(s) from "
+                + (web ? "WebView DOM" : "native page source") + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return snapshot;
+    }
+
+    private void index(Element element) {
+        byTag.computeIfAbsent(element.getTagName(), key -> new ArrayList<>()).add(element);
+        String id = element.getAttribute("id");
+        if (!id.isEmpty()) {
+            byId.putIfAbsent(id, element);
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                index((Element) child);
+            }
+        }
+    }
+
+    public List<Element> findAll(String xpathQuery) {
+        try {
+            XPathExpression expression = compiled.get(xpathQuery);
+            if (expression == null) {
+                expression = xpath.compile(xpathQuery);
+                compiled.put(xpathQuery, expression);
+            }
+            NodeList nodes = (NodeList) expression.evaluate(document, XPathConstants.NODESET);
+            List<Element> elements = new ArrayList<>(nodes.getLength());
+            for (int i = 0; i < nodes.getLength(); i++) {
+                if (nodes.item(i) instanceof Element) {
+                    elements.add((Element) nodes.item(i));
+                }
+            }
+            return elements;
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid XPath for snapshot: " + xpathQuery, e);
+        }
+    }
+
+    public List<Element> findAll(Locator locator) {
+        return findAll(locator.getXpath());
+    }
+
+    // Simple selectors only (tag, #id, .class, [attr], [attr=v], [attr*=v], [attr^=v], descendant and child combinators)
+    public List<Element> css(String selector) {
+        List<Element> current = null;
+        boolean child = false;
+        for (String token : selector.trim().split("\\s+")) {
+            if (token.equals(">")) {
+                child = true;
+                continue;
+            }
+            Matcher step = CSS_STEP.matcher(token);
+            if (!step.matches()) {
+                throw new IllegalArgumentException("Unsupported CSS selector for snapshot: " + selector);
+            }
+            Set<Element> ancestors = current == null ? null : new HashSet<>(current);
+            List<Element> next = new ArrayList<>();
+            for (Element candidate : candidates(step.group(1), step.group(2))) {
+                if (matches(candidate, step.group(1), step.group(2)) && (ancestors == null || hasAncestor(candidate, ancestors, child))) {
+                    next.add(candidate);
+                }
+            }
+            current = next;
+            child = false;
+        }
+        return current == null ? Collections.emptyList() : current;
+    }
+
+    private List<Element> candidates(String tag, String parts) {
+        Matcher id = CSS_ID.matcher(parts);
+        if (id.find()) {
+            Element element = byId.get(id.group(1));
+            return element == null ? Collections.emptyList() : List.of(element);
+        }
+        if (tag != null && !tag.equals("*")) {
+            return byTag.getOrDefault(tag, Collections.emptyList());
+        }
+        List<Element> all = new ArrayList<>();
+        byTag.values().forEach(all::addAll);
+        return all;
+    }
+
+    private static boolean matches(Element element, String tag, String parts) {
+        if (tag != null && !tag.equals("*") && !tag.equals(element.getTagName())) {
+            return false;
+        }
+        Matcher part = CSS_PART.matcher(parts);
+        while (part.find()) {
+            if (part.group(1) != null && !part.group(1).equals(element.getAttribute("id"))) {
+                return false;
+            }
+            if (part.group(2) != null && !(" " + element.getAttribute("class") + " ").contains(" " + part.group(2) + " ")) {
+                return false;
+            }
+            if (part.group(3) != null) {
+                if (!element.hasAttribute(part.group(3))) {
+                    return false;
+                }
+                String value = element.getAttribute(part.group(3));
+                String operator = part.group(4);
+                if ("=".equals(operator) && !value.equals(part.group(5))
+                        || "*=".equals(operator) && !value.contains(part.group(5))
+                        || "^=".equals(operator) && !value.startsWith(part.group(5))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasAncestor(Element element, Set<Element> ancestors, boolean directParentOnly) {
+        for (Node parent = element.getParentNode(); parent instanceof Element; parent = parent.getParentNode()) {
+            if (ancestors.contains(parent)) {
+                return true;
+            }
+            if (directParentOnly) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public boolean exists(String xpathQuery) {
+        return !findAll(xpathQuery).isEmpty();
+    }
+
+    public boolean isVisible(Element element) {
+        if (web) {
+            return "true".equals(element.getAttribute(WEB_VISIBLE));
+        }
+        // UiAutomator2 reports displayed, XCUITest reports visible
+        return "true".equals(element.getAttribute("displayed")) || "true".equals(element.getAttribute("visible"));
+    }
+
+    public boolean isVisible(String xpathQuery) {
+        return findAll(xpathQuery).stream().anyMatch(this::isVisible);
+    }
+
+    // Rendered text, so CSS text-transform and hidden children are taken into account in the WebView
+    public String text(Element element) {
+        if (web) {
+            if (element.hasAttribute(WEB_TEXT)) {
+                return element.getAttribute(WEB_TEXT).trim();
+            }
+            StringBuilder text = new StringBuilder();
+            appendRenderedText(element, text);
+            return text.length() > 0 ? text.toString() : element.getTextContent().trim();
+        }
+        for (String attribute : new String[]{"text", "label", "value", "name"}) {
+            if (!element.getAttribute(attribute).isEmpty()) {
+                return element.getAttribute(attribute);
+            }
+        }
+        return element.getTextContent().trim();
+    }
+
+    // innerText of an element already covers its descendants, so only the outermost text holders are collected
+    private void appendRenderedText(Element element, StringBuilder text) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element)) {
+                continue;
+            }
+            Element childElement = (Element) child;
+            if (childElement.hasAttribute(WEB_TEXT)) {
+                if (isVisible(childElement)) {
+                    text.append(text.length() == 0 ? "" : " ").append(childElement.getAttribute(WEB_TEXT).trim());
+                }
+            } else {
+                appendRenderedText(childElement, text);
+            }
+        }
+    }
+
+    public List<String> texts(String xpathQuery) {
+        List<String> texts = new ArrayList<>();
+        for (Element element : findAll(xpathQuery)) {
+            texts.add(text(element));
+        }
+        return texts;
+    }
+
+    public boolean isWeb() {
+        return web;
+    }
+}
@@ -1,30 +1,34 @@
 package screens;
 
+import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 
-import org.openqa.selenium.By;
+import java.time.Duration;
+
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 public class SchedulePage {
 
     protected AppiumDriver driver;
-    private WebDriverWait wait;
+    private WaitEngine waits;
 
-    private final By favoritesButtonBy = By.xpath("//ion-segment-button[@value=\"favorites\"]");
+    // @value has no native counterpart, so native lookups go by the segment's label
+    private final Locator favoritesButtonBy = Locator.xpath("SchedulePage.favoritesButton", "//ion-segment-button[@value=\"favorites\"]")
+            .onAndroid(AppiumBy.androidUIAutomator("new UiSelector().textMatches(\"(?i)favorites\")"))
+            .onIos(AppiumBy.iOSNsPredicateString("label ==[c] \"Favorites\""));
 
-    public SchedulePage(AppiumDriver driver, WebDriverWait wait) {
+    public SchedulePage(AppiumDriver driver, WaitEngine waits) {
         this.driver = driver;
-        this.wait = wait;
+        this.waits = waits;
         PageFactory.initElements(new AppiumFieldDecorator(driver), this);
-        // wait = new WebDriverWait(this.driver, Duration.ofSeconds(5));
+        // In-app navigation: the page renders well within this once the tap went through
+        waits.withTimeout(favoritesButtonBy, Duration.ofSeconds(10));
     }
 
     public boolean schedulePageLoaded() {
-        WebElement favoritesButton = wait.until(ExpectedConditions.visibilityOfElementLocated(favoritesButtonBy));
+        WebElement favoritesButton = waits.visible("SchedulePage.favoritesButton", favoritesButtonBy);
         return favoritesButton.isDisplayed();
     }
 }
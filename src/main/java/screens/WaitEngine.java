@@ -0,0 +1,259 @@
+package screens;
+
+import io.appium.java_client.AppiumDriver;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import support.ContextSwitcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class WaitEngine {
+
+    private static final long FIRST_POLL_MS = 50;
+    private static final long MAX_POLL_MS = 500;
+    private static final double BACKOFF = 1.5;
+
+    private static final Map<String, WaitSummary> summaries = new ConcurrentHashMap<>();
+
+    private final AppiumDriver driver;
+    private final Duration defaultTimeout;
+    private final Map<By, Duration> timeouts = new HashMap<>();
+    private final List<WaitRecord> records = new ArrayList<>();
+    private final ElementCache cache = new ElementCache();
+    private final WebViewExecutor webView;
+
+    public WaitEngine(AppiumDriver driver, Duration defaultTimeout) {
+        this.driver = driver;
+        this.defaultTimeout = defaultTimeout;
+        this.webView = new WebViewExecutor(driver);
+    }
+
+    public static class WaitRecord {
+        private final String name;
+        private final long budgetMs;
+        private final long elapsedMs;
+        private final int polls;
+        private final boolean success;
+
+        WaitRecord(String name, long budgetMs, long elapsedMs, int polls, boolean success) {
+            this.name = name;
+            this.budgetMs = budgetMs;
+            this.elapsedMs = elapsedMs;
+            this.polls = polls;
+            this.success = success;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getBudgetMs() {
+            return budgetMs;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public int getPolls() {
+            return polls;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d ms of %d ms budget, %d poll(s)%s", name, elapsedMs, budgetMs, polls, success ? "" : ", TIMED OUT");
+        }
+    }
+
+    public static class WaitSummary {
+        private int count;
+        private long totalMs;
+        private long maxMs;
+        private int timeouts;
+
+        synchronized void add(WaitRecord record) {
+            count++;
+            totalMs += record.elapsedMs;
+            maxMs = Math.max(maxMs, record.elapsedMs);
+            if (!record.success) {
+                timeouts++;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%d wait(s), avg %d ms, max %d ms, %d timeout(s)", count, count == 0 ? 0 : totalMs / count, maxMs, timeouts);
+        }
+    }
+
+    public WaitEngine withTimeout(By locator, Duration timeout) {
+        timeouts.put(locator, timeout);
+        return this;
+    }
+
+    // A cached element costs one isDisplayed() call, which doubles as the staleness check
+    public WebElement visible(String name, By locator) {
+        String context = ContextSwitcher.getCurrentContext();
+        WebElement cached = cache.get(context, locator);
+        if (cached != null) {
+            try {
+                if (cached.isDisplayed()) {
+                    record(new WaitRecord(name + " (cached)", timeoutFor(locator).toMillis(), 0, 0, true));
+                    return cached;
+                }
+            } catch (StaleElementReferenceException e) {
+                // resolved again below
+            }
+            cache.evict(context, locator);
+        }
+        return resolve(name, locator, context);
+    }
+
+    // Finds the element and caches it; the caller has already looked it up in the cache
+    private WebElement resolve(String name, By locator, String context) {
+        WebElement element = null;
+        if (locator instanceof Locator && Locator.isWebView(context)) {
+            element = inPage(name, (Locator) locator);
+        }
+        if (element == null) {
+            element = until(name, timeoutFor(locator), wd -> firstDisplayed(wd, locator));
+        }
+        cache.put(context, locator, element);
+        return element;
+    }
+
+    // One async script that returns when the element renders, instead of polling from here
+    private WebElement inPage(String name, Locator locator) {
+        Duration budget = timeoutFor(locator);
+        long start = System.nanoTime();
+        WebElement element;
+        try {
+            element = webView.waitVisible(locator, budget);
+        } catch (JavascriptException | ScriptTimeoutException e) {
+            System.out.println("--- WaitEngine: In-page wait for " + name + " failed, polling instead: " + e.getMessage());
+            return null;
+        }
+        if (element == null) {
+            record(new WaitRecord(name + " (in page)", budget.toMillis(), elapsedMs(start), 1, false));
+            throw new TimeoutException("Timed out after " + budget.toMillis() + " ms waiting in page for " + name);
+        }
+        record(new WaitRecord(name + " (in page)", budget.toMillis(), elapsedMs(start), 1, true));
+        return element;
+    }
+
+    // Visibility of several WebView elements in one round trip
+    public Map<String, Boolean> checkAll(List<Locator> locators) {
+        return webView.checkAll(locators);
+    }
+
+    public void click(String name, By locator) {
+        String context = ContextSwitcher.getCurrentContext();
+        WebElement cached = cache.get(context, locator);
+        if (cached != null) {
+            try {
+                cached.click();
+                return;
+            } catch (StaleElementReferenceException | ElementNotInteractableException e) {
+                cache.evict(context, locator);
+            }
+        }
+        resolve(name, locator, context).click();
+    }
+
+    // Polls fast first and backs off, so quick screens are seen early without hammering slow ones
+    public <T> T until(String name, Duration budget, Function<WebDriver, T> condition) {
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        long pollMs = FIRST_POLL_MS;
+        int polls = 0;
+        RuntimeException lastError = null;
+        while (true) {
+            polls++;
+            try {
+                T result = condition.apply(driver);
+                if (result != null && !Boolean.FALSE.equals(result)) {
+                    record(new WaitRecord(name, budget.toMillis(), elapsedMs(start), polls, true));
+                    return result;
+                }
+            } catch (NotFoundException | StaleElementReferenceException e) {
+                lastError = e;
+            }
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMs <= 0) {
+                record(new WaitRecord(name, budget.toMillis(), elapsedMs(start), polls, false));
+                throw new TimeoutException("Timed out after " + budget.toMillis() + " ms waiting for " + name + " (" + polls + " polls)", lastError);
+            }
+            try {
+                Thread.sleep(Math.min(pollMs, remainingMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TimeoutException("Interrupted while waiting for " + name, e);
+            }
+            pollMs = Math.min((long) (pollMs * BACKOFF), MAX_POLL_MS);
+        }
+    }
+
+    private static WebElement firstDisplayed(WebDriver wd, By locator) {
+        for (WebElement element : wd.findElements(locator)) {
+            if (element.isDisplayed()) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private Duration timeoutFor(By locator) {
+        return timeouts.getOrDefault(locator, defaultTimeout);
+    }
+
+    public void forget() {
+        cache.invalidate();
+    }
+
+    public ElementCache getCache() {
+        return cache;
+    }
+
+    private static long elapsedMs(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private synchronized void record(WaitRecord record) {
+        records.add(record);
+        summaries.computeIfAbsent(record.name.replace(" (cached)", "").replace(" (in page)", ""), key -> new WaitSummary()).add(record);
+    }
+
+    // Returns and clears the waits recorded since the last call, e.g. once per scenario
+    public synchronized List<WaitRecord> drainRecords() {
+        List<WaitRecord> drained = new ArrayList<>(records);
+        records.clear();
+        return drained;
+    }
+
+    public static Map<String, WaitSummary> getSummaries() {
+        return Map.copyOf(summaries);
+    }
+
+    public static void resetSummaries() {
+        summaries.clear();
+    }
+}
@@ -0,0 +1,105 @@
+package screens;
+
+import io.appium.java_client.AppiumDriver;
+
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Checks and waits that run inside the WebView page, so a whole wait costs one round trip instead of a poll loop
+public class WebViewExecutor {
+
+    // Margin for the round trip on top of the in-page budget, so the page gives up before the driver does
+    private static final Duration SCRIPT_TIMEOUT_MARGIN = Duration.ofSeconds(5);
+
+    private static final String HELPERS =
+            "function snapFind(l) {" +
+            "  if (l.css) { return Array.prototype.slice.call(document.querySelectorAll(l.css)); }" +
+            "  var r = document.evaluate(l.xpath, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), out = [];" +
+            "  for (var i = 0; i < r.snapshotLength; i++) { out.push(r.snapshotItem(i)); }" +
+            "  return out;" +
+            "}" +
+            "function snapVisible(el) {" +
+            "  if (!el.getClientRects().length) { return false; }" +
+            "  var style = window.getComputedStyle(el);" +
+            "  return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0';" +
+            "}" +
+            "function snapFirstVisible(l) {" +
+            "  var els = snapFind(l);" +
+            "  for (var i = 0; i < els.length; i++) { if (snapVisible(els[i])) { return els[i]; } }" +
+            "  return null;" +
+            "}";
+
+    private static final String CHECK_ALL_SCRIPT = HELPERS +
+            "return arguments[0].map(function (l) { return snapFirstVisible(l) !== null; });";
+
+    // Checks on every DOM mutation (after the next frame, so styles are applied) and on a slow timer for CSS transitions
+    private static final String WAIT_VISIBLE_SCRIPT = HELPERS +
+            "var l = arguments[0], budget = arguments[1], done = arguments[arguments.length - 1];" +
+            "var finished = false, observer = null, timer = null, poll = null;" +
+            "function finish(value) {" +
+            "  if (finished) { return; }" +
+            "  finished = true;" +
+            "  if (observer) { observer.disconnect(); }" +
+            "  clearTimeout(timer); clearInterval(poll);" +
+            "  done(value);" +
+            "}" +
+            "function check() { if (!finished) { var el = snapFirstVisible(l); if (el) { finish(el); } } }" +
+            "check();" +
+            "if (!finished) {" +
+            "  observer = new MutationObserver(function () { window.requestAnimationFrame(check); });" +
+            "  observer.observe(document.documentElement, {childList: true, subtree: true, attributes: true, characterData: true});" +
+            "  poll = setInterval(check, 100);" +
+            "  timer = setTimeout(function () { finish(null); }, budget);" +
+            "}";
+
+    private final AppiumDriver driver;
+    private Duration scriptTimeout;
+
+    public WebViewExecutor(AppiumDriver driver) {
+        this.driver = driver;
+    }
+
+    // Visibility of every locator in one executeScript call, keyed by locator name
+    public Map<String, Boolean> checkAll(List<Locator> locators) {
+        List<Map<String, String>> arguments = new ArrayList<>();
+        for (Locator locator : locators) {
+            arguments.add(toArgument(locator));
+        }
+        List<?> results = (List<?>) driver.executeScript(CHECK_ALL_SCRIPT, arguments);
+        Map<String, Boolean> visible = new LinkedHashMap<>();
+        for (int i = 0; i < locators.size(); i++) {
+            visible.put(locators.get(i).getName(), Boolean.TRUE.equals(results.get(i)));
+        }
+        return visible;
+    }
+
+    // The first visible match as soon as it renders, or null once the budget is spent
+    public WebElement waitVisible(Locator locator, Duration budget) {
+        ensureScriptTimeout(budget.plus(SCRIPT_TIMEOUT_MARGIN));
+        Object result = driver.executeAsyncScript(WAIT_VISIBLE_SCRIPT, toArgument(locator), budget.toMillis());
+        return result instanceof WebElement ? (WebElement) result : null;
+    }
+
+    private void ensureScriptTimeout(Duration needed) {
+        if (scriptTimeout == null || scriptTimeout.compareTo(needed) < 0) {
+            driver.manage().timeouts().scriptTimeout(needed);
+            scriptTimeout = needed;
+        }
+    }
+
+    private static Map<String, String> toArgument(Locator locator) {
+        Map<String, String> argument = new HashMap<>();
+        if (locator.getCss() != null) {
+            argument.put("css", locator.getCss());
+        } else {
+            argument.put("xpath", locator.getXpath());
+        }
+        return argument;
+    }
+}
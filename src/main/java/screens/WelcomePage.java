@@ -4,33 +4,51 @@ import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 
 import java.time.Duration;
+import java.util.List;
 
-import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+
+import support.GestureComposer;
 
 public class WelcomePage {
 
     protected AppiumDriver driver;
-    private WebDriverWait wait;
-    private final By skipButtonBy = By.xpath("//ion-button[@id=\"skip_tutorial_btn\"]");
+    private WaitEngine waits;
+    private final Locator slidesBy = Locator.xpath("WelcomePage.slides", "//ion-slides");
+    private final Locator skipButtonBy = Locator.xpath("WelcomePage.skipButton", "//ion-button[@id=\"skip_tutorial_btn\"]");
     // private final By welcomeTextBy = By.xpath("//ion-slide[contains(@class, 'swiper-slide-active') and .//h2[text()=' Welcome to ']]");
     
 
-    public WelcomePage(AppiumDriver driver, WebDriverWait wait) {
+    public WelcomePage(AppiumDriver driver, WaitEngine waits) {
         this.driver = driver;
-        this.wait = wait;
+        this.waits = waits;
         PageFactory.initElements(new AppiumFieldDecorator(driver), this);
-        // wait = new WebDriverWait(this.driver, Duration.ofSeconds(5));
+        // First screen after an app restart, so it gets the full budget
+        waits.withTimeout(skipButtonBy, Duration.ofSeconds(15));
     }
 
     public boolean welcomePageLoaded() {
-        WebElement skipBtn = wait.until(ExpectedConditions.visibilityOfElementLocated(skipButtonBy));
+        WebElement skipBtn = waits.visible("WelcomePage.skipButton", skipButtonBy);
         return skipBtn.isDisplayed();
     }
 
+    // All slide titles from one page snapshot instead of one lookup per slide
+    public List<String> slideTitles() {
+        return PageSnapshot.take(driver).texts("//ion-slide//h2");
+    }
+
+    // All swipes go out in one actions call; the pauses let each slide transition finish
+    public void swipeThroughSlides(int count) {
+        WebElement slides = waits.visible("WelcomePage.slides", slidesBy);
+        GestureComposer gestures = new GestureComposer(driver);
+        for (int i = 0; i < count; i++) {
+            gestures.swipe(slides, "left", 0.6, Duration.ofMillis(250)).pause(Duration.ofMillis(400));
+        }
+        gestures.perform();
+    }
+
     public void clickSkipButton() {
-        wait.until(ExpectedConditions.visibilityOfElementLocated(skipButtonBy)).click();    }
+        waits.click("WelcomePage.skipButton", skipButtonBy);
+    }
 }
@@ -0,0 +1,211 @@
+package support;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Command latencies at two levels: a histogram per device and command, which is what the Prometheus export carries,
+// and plain totals per scenario, device and command for the JSON, so a large suite costs a few longs per scenario.
+public class CommandMetrics {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+    private static final String UNTAGGED = "none";
+
+    private static final Map<String, Series> series = new ConcurrentHashMap<>();
+    private static final Map<String, CommandHistogram> histograms = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Series> current = new ThreadLocal<>();
+    private static final ThreadLocal<String> scenario = new ThreadLocal<>();
+    private static final ThreadLocal<String> device = new ThreadLocal<>();
+
+    // Count, sum and max of one command within one scenario
+    public static class Totals {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sumMicros = new AtomicLong();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1_000);
+            count.incrementAndGet();
+            sumMicros.addAndGet(micros);
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public double getMeanMillis() {
+            long n = count.get();
+            return n == 0 ? 0 : sumMicros.get() / 1_000.0 / n;
+        }
+
+        public double getMaxMillis() {
+            return maxMicros.get() / 1_000.0;
+        }
+    }
+
+    // All command totals for one scenario on one device
+    public static class Series {
+        private final String scenario;
+        private final String device;
+        private final Map<String, Totals> commands = new ConcurrentHashMap<>();
+
+        Series(String scenario, String device) {
+            this.scenario = scenario;
+            this.device = device;
+        }
+
+        public String getScenario() {
+            return scenario;
+        }
+
+        public String getDevice() {
+            return device;
+        }
+
+        public Map<String, Totals> getCommands() {
+            return commands;
+        }
+    }
+
+    private static class CommandHistogram {
+        final String command;
+        final String device;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        CommandHistogram(String command, String device) {
+            this.command = command;
+            this.device = device;
+        }
+    }
+
+    public static void setScenario(String name) {
+        scenario.set(name);
+        current.remove();
+    }
+
+    public static void setDevice(String name) {
+        device.set(name);
+        current.remove();
+    }
+
+    public static void record(String command, long nanos) {
+        Series tagged = current.get();
+        if (tagged == null) {
+            String scenarioName = scenario.get() == null ? UNTAGGED : scenario.get();
+            String deviceName = device.get() == null ? UNTAGGED : device.get();
+            tagged = series.computeIfAbsent(scenarioName + "\u0000" + deviceName, key -> new Series(scenarioName, deviceName));
+            current.set(tagged);
+        }
+        Totals totals = tagged.commands.get(command);
+        if (totals == null) {
+            totals = tagged.commands.computeIfAbsent(command, key -> new Totals());
+        }
+        totals.record(nanos);
+        String deviceName = tagged.device;
+        String key = deviceName + "\u0000" + command;
+        CommandHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, ignored -> new CommandHistogram(command, deviceName));
+        }
+        histogram.histogram.recordNanos(nanos);
+    }
+
+    public static List<Series> getSeries() {
+        return new ArrayList<>(series.values());
+    }
+
+    // Drops everything recorded so far, e.g. between runs of the runner daemon
+    public static void reset() {
+        series.clear();
+        histograms.clear();
+        current.remove();
+    }
+
+    public static void export(File dir) {
+        try {
+            Files.createDirectories(dir.toPath());
+            Files.writeString(new File(dir, "commands.json").toPath(), toJson(), StandardCharsets.UTF_8);
+            Files.writeString(new File(dir, "commands.prom").toPath(), toPrometheus(), StandardCharsets.UTF_8);
+            System.out.println("--- CommandMetrics: Command latencies written to " + dir);
+        } catch (IOException e) {
+            System.err.println("!!! CommandMetrics: Could not write metrics to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    // Percentiles per device and command, totals per scenario
+    static String toJson() {
+        List<Map<String, Object>> commands = new ArrayList<>();
+        for (CommandHistogram tagged : histograms.values()) {
+            LatencyHistogram histogram = tagged.histogram;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("command", tagged.command);
+            row.put("device", tagged.device);
+            row.put("count", histogram.getCount());
+            row.put("meanMs", round(histogram.getMeanMillis()));
+            for (double percentile : PERCENTILES) {
+                row.put("p" + (int) percentile + "Ms", round(histogram.getPercentileMillis(percentile)));
+            }
+            row.put("maxMs", round(histogram.getMaxMillis()));
+            commands.add(row);
+        }
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        for (Series tagged : getSeries()) {
+            tagged.commands.forEach((command, totals) -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("command", command);
+                row.put("scenario", tagged.scenario);
+                row.put("device", tagged.device);
+                row.put("count", totals.getCount());
+                row.put("meanMs", round(totals.getMeanMillis()));
+                row.put("maxMs", round(totals.getMaxMillis()));
+                scenarios.add(row);
+            });
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("commands", commands);
+        json.put("scenarios", scenarios);
+        return new Json().toJson(json);
+    }
+
+    // Labelled by command and device only, so the number of series doesn't grow with the suite
+    static String toPrometheus() {
+        String metric = "appium_command_latency_seconds";
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP ").append(metric).append(" Client-side latency of WebDriver/Appium commands.\n");
+        out.append("# TYPE ").append(metric).append(" summary\n");
+        for (CommandHistogram tagged : histograms.values()) {
+            LatencyHistogram histogram = tagged.histogram;
+            String labels = "command=\"" + escape(tagged.command) + "\",device=\"" + escape(tagged.device) + "\"";
+            for (double percentile : PERCENTILES) {
+                out.append(metric).append('{').append(labels).append(",quantile=\"").append(percentile / 100).append("\"} ")
+                        .append(format(histogram.getPercentileMillis(percentile) / 1_000)).append('\n');
+            }
+            out.append(metric).append("_sum{").append(labels).append("} ").append(format(histogram.getSumSeconds())).append('\n');
+            out.append(metric).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,55 @@
+package support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ContextState {
+    public static final String NATIVE_APP = "NATIVE_APP";
+
+    private String currentContext;
+    private String webViewId;
+    private String webViewHint;
+    private final AtomicInteger roundTrips = new AtomicInteger();
+
+    // The id confirmed for the running app instance; null until resolved or after a restart
+    public String getWebViewId() {
+        return webViewId;
+    }
+
+    // The id the previous app instance used, worth one direct switch attempt before polling
+    public String getWebViewHint() {
+        return webViewHint;
+    }
+
+    public String getCurrentContext() {
+        return currentContext;
+    }
+
+    public boolean isIn(String context) {
+        return context != null && context.equals(currentContext);
+    }
+
+    public void switched(String context) {
+        currentContext = context;
+        if (context != null && context.toLowerCase().contains("webview")) {
+            webViewId = context;
+            webViewHint = context;
+        }
+    }
+
+    public void appRestarted() {
+        currentContext = null;
+        webViewId = null;
+    }
+
+    public void roundTrip() {
+        roundTrips.incrementAndGet();
+    }
+
+    public int getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public int resetRoundTrips() {
+        return roundTrips.getAndSet(0);
+    }
+}
@@ -11,12 +11,51 @@ import java.util.Set;
 
 public class ContextSwitcher {
 
-    private static AppiumDriver driver;
-    private static WebDriverWait wait;
+    private static final ThreadLocal<ContextSwitcher> current = new ThreadLocal<>();
+
+    private final AppiumDriver driver;
+    private final WebDriverWait wait;
+    private final ContextState state = new ContextState();
 
     public ContextSwitcher(AppiumDriver driver, WebDriverWait wait) {
-        ContextSwitcher.driver = driver;
-        ContextSwitcher.wait = wait;
+        this.driver = driver;
+        this.wait = wait;
+    }
+
+    public static void bind(ContextSwitcher switcher) {
+        if (switcher == null) {
+            current.remove();
+        } else {
+            current.set(switcher);
+        }
+    }
+
+    private static AppiumDriver driver() {
+        ContextSwitcher switcher = current.get();
+        return switcher == null ? null : switcher.driver;
+    }
+
+    private static WebDriverWait waitFor() {
+        ContextSwitcher switcher = current.get();
+        return switcher == null ? null : switcher.wait;
+    }
+
+    private static ContextState state() {
+        ContextSwitcher switcher = current.get();
+        return switcher == null ? new ContextState() : switcher.state;
+    }
+
+    // Call after terminate/activate: the old WebView is gone and the session is back in native
+    public static void appRestarted() {
+        state().appRestarted();
+    }
+
+    public static int getRoundTrips() {
+        return state().getRoundTrips();
+    }
+
+    public static int resetRoundTrips() {
+        return state().resetRoundTrips();
     }
 
     private static String extractContextId(Object ctx) {
@@ -33,42 +72,56 @@ public class ContextSwitcher {
 
     public static void switchToWebView() {
         System.out.println("--- ContextSwitcher: Attempting to switch to WebView context...");
+        AppiumDriver driver = driver();
+        WebDriverWait wait = waitFor();
+        if (driver == null) {
+            throw new IllegalStateException("No driver bound to thread " + Thread.currentThread().getName());
+        }
+        ContextState state = current.get().state;
+
+        if (state.getWebViewId() != null && state.isIn(state.getWebViewId())) {
+            System.out.println("--- ContextSwitcher: Already in WebView: " + state.getWebViewId());
+            return;
+        }
+
+        String hint = state.getWebViewHint();
+        if (hint != null) {
+            try {
+                state.roundTrip();
+                ((SupportsContextSwitching) driver).context(hint);
+                state.switched(hint);
+                System.out.println("--- ContextSwitcher: Successfully switched to known WebView: " + hint);
+                return;
+            } catch (Exception e) {
+                System.out.println("--- ContextSwitcher: Known WebView " + hint + " not available yet, polling contexts.");
+            }
+        }
 
         try {
-            ExpectedCondition<Boolean> webViewAvailable = wd -> {
+            // Find and switch in the same poll, so a found context costs no extra listing
+            String[] lastSeen = {null};
+            ExpectedCondition<Boolean> switchedToWebView = wd -> {
+                state.roundTrip();
                 Set<?> contexts = ((SupportsContextSwitching) driver).getContextHandles();
-                System.out.println("--- ContextSwitcher: Checking contexts: " + contexts); 
+                if (!contexts.toString().equals(lastSeen[0])) {
+                    lastSeen[0] = contexts.toString();
+                    System.out.println("--- ContextSwitcher: Checking contexts: " + contexts);
+                }
                 for (Object ctx : contexts) {
                     String context = extractContextId(ctx);
-                    System.out.println("--- ContextSwitcher: loop through contexts: " + context); 
-                    
-                    if (context.toLowerCase().contains("webview")) {
-                        return true; 
+                    if (context != null && context.toLowerCase().contains("webview")) {
+                        state.roundTrip();
+                        ((SupportsContextSwitching) driver).context(context);
+                        state.switched(context);
+                        System.out.println("--- ContextSwitcher: Successfully switched to WebView: " + context);
+                        return true;
                     }
                 }
-                return false; 
+                return false;
             };
 
             System.out.println("--- ContextSwitcher: Waiting for WebView context to become available...");
-            wait.until(webViewAvailable);
-
-            Set<?> rawContexts = ((SupportsContextSwitching) driver).getContextHandles();
-            boolean switched = false;
-            for (Object ctx : rawContexts) {
-                String context = extractContextId(ctx);
-                if (context.toLowerCase().contains("webview")) {
-                    ((SupportsContextSwitching) driver).context(context);
-                    System.out.println("--- ContextSwitcher: Successfully switched to WebView: " + context);
-                    switched = true;
-                    break; 
-                }
-            }
-
-            if (!switched) {
-                System.err.println("!!! Error: Waited for WebView context, but failed to switch afterwards.");
-                printAllContexts(); 
-                throw new RuntimeException("No WebView context found to switch to, even after waiting.");
-            }
+            wait.until(switchedToWebView);
 
         } catch (TimeoutException e) {
             System.err.println("!!! Error: Timed out waiting for WebView context after " + wait.toString() + " seconds.");
@@ -83,13 +136,21 @@ public class ContextSwitcher {
     }
 
     public static void switchToNative() {
+         AppiumDriver driver = driver();
          if (driver == null) {
             System.err.println("!!! Driver is null in switchToNative. Cannot switch context.");
             return; 
         }
+        ContextState state = state();
+        if (state.isIn(ContextState.NATIVE_APP)) {
+            System.out.println("--- ContextSwitcher: Already in Native App");
+            return;
+        }
         System.out.println("--- ContextSwitcher: Switching to Native App context...");
         try {
-             ((SupportsContextSwitching) driver).context("NATIVE_APP");
+             state.roundTrip();
+             ((SupportsContextSwitching) driver).context(ContextState.NATIVE_APP);
+             state.switched(ContextState.NATIVE_APP);
              System.out.println("--- ContextSwitcher: Successfully switched to Native App");
         } catch (Exception e) {
             System.err.println("!!! Error switching to Native App context: " + e.getMessage());
@@ -98,21 +159,31 @@ public class ContextSwitcher {
     }
 
     public static String getCurrentContext() {
+        AppiumDriver driver = driver();
         if (driver == null) return "Driver is null";
+        ContextState state = state();
+        if (state.getCurrentContext() != null) {
+            return state.getCurrentContext();
+        }
         try {
-            return ((SupportsContextSwitching) driver).getContext();
+            state.roundTrip();
+            String context = ((SupportsContextSwitching) driver).getContext();
+            state.switched(context);
+            return context;
         } catch (Exception e) {
             return "Error getting context: " + e.getMessage();
         }
     }
 
     private static void printAllContexts() {
+        AppiumDriver driver = driver();
         if (driver == null) {
             System.out.println("--- ContextSwitcher: Available contexts: Driver is null.");
             return;
         }
         try {
             System.out.println("--- ContextSwitcher: Available contexts:");
+            state().roundTrip();
             for (Object ctx : ((SupportsContextSwitching) driver).getContextHandles()) {
                 String context = extractContextId(ctx);
                 System.out.println("- " + context);
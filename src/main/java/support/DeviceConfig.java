@@ -0,0 +1,34 @@
+package support;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class DeviceConfig {
+    private final String name;
+    private final String udid;
+    private final Map<String, Object> capabilities;
+
+    public DeviceConfig(String name, String udid, Map<String, Object> capabilities) {
+        this.name = name;
+        this.udid = udid;
+        this.capabilities = Collections.unmodifiableMap(capabilities);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUdid() {
+        return udid;
+    }
+
+    // Capabilities layered over the platform ones when a session is created on this device
+    public Map<String, Object> getCapabilities() {
+        return capabilities;
+    }
+
+    @Override
+    public String toString() {
+        return udid == null ? name : name + " (" + udid + ")";
+    }
+}
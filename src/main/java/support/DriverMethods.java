@@ -10,55 +10,77 @@ import org.openqa.selenium.remote.RemoteWebElement;
 
 import org.testng.Reporter;
 
+import reports.ScreenshotPipeline;
+
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class DriverMethods {
-    private static AppiumDriver driver;
+    private static final ThreadLocal<AppiumDriver> currentDriver = new ThreadLocal<>();
 
     public static void setDriver(AppiumDriver driver) {
-        DriverMethods.driver = driver;
+        if (driver == null) {
+            currentDriver.remove();
+        } else {
+            currentDriver.set(driver);
+        }
+    }
+
+    private static AppiumDriver driver() {
+        return currentDriver.get();
     }
     
     public static void activateApp() {
-        driver.executeScript("mobile: activateApp", Map.ofEntries(
+        driver().executeScript("mobile: activateApp", Map.ofEntries(
                 Map.entry("appId", TestProperties.getProperty("appPackage"))
         ));
+        ContextSwitcher.appRestarted();
     }
 
     public static void terminateApp() {
-        driver.executeScript("mobile: terminateApp", Map.ofEntries(
+        driver().executeScript("mobile: terminateApp", Map.ofEntries(
                 Map.entry("appId", TestProperties.getProperty("appPackage")),
                 Map.entry("timeout", 1000)
         ));
+        ContextSwitcher.appRestarted();
     }
 
     public static String getScreenshot() {
-        return driver.getScreenshotAs(OutputType.BASE64);
+        return driver().getScreenshotAs(OutputType.BASE64);
+    }
+
+    // Returns the screenshot's path relative to the Extent report; the file is written in the background
+    public static String captureScreenshot() {
+        return ScreenshotPipeline.capture(driver());
     }
 
     public static void logScreenShot() {
-        String src = driver.getScreenshotAs(OutputType.BASE64);
-        String path = "<img src=\"data:image/png;base64, " + src + "\" width=\"*\" height=\"350\"";
+        String src = ScreenshotPipeline.resolve(captureScreenshot()).toURI().toString();
+        String path = "<a href=\"" + src + "\"><img src=\"" + src + "\" width=\"*\" height=\"350\"></a>";
         Reporter.log(path);
     }
 
     public static void tapOnCoordinates(int x, int y) {
-        driver.executeScript("mobile: clickGesture", Map.ofEntries(
+        driver().executeScript("mobile: clickGesture", Map.ofEntries(
                 Map.entry("x", x),
                 Map.entry("y", y)
         ));
     }
 
     public static void tapOnElem(WebElement element) {
-        driver.executeScript("mobile: clickGesture", Map.ofEntries(
+        driver().executeScript("mobile: clickGesture", Map.ofEntries(
                 Map.entry("elementId", ((RemoteWebElement) element).getId())));
     }
 
     public static void swipeByCoord(int left, int top, int width, int height,
                                     String direction, Double percent, int speed) {
-        driver.executeScript("mobile: swipeGesture", Map.ofEntries(
+        driver().executeScript("mobile: swipeGesture", Map.ofEntries(
                 Map.entry("left", left),
                 Map.entry("top", top),
                 Map.entry("width", width),
@@ -70,7 +92,7 @@ public class DriverMethods {
     }
 
     public static void swipeByElem(WebElement element, String direction, Double percent, int speed) {
-        driver.executeScript("mobile: swipeGesture", Map.ofEntries(
+        driver().executeScript("mobile: swipeGesture", Map.ofEntries(
                 Map.entry("elementId", ((RemoteWebElement) element).getId()),
                 Map.entry("direction", direction),
                 Map.entry("percent", percent),
@@ -80,7 +102,7 @@ public class DriverMethods {
 
     public static void dragByCoord(int startX, int startY, int endX,
                                    int endY, int speed) {
-        driver.executeScript("mobile: dragGesture", Map.ofEntries(
+        driver().executeScript("mobile: dragGesture", Map.ofEntries(
                 Map.entry("startX", startX),
                 Map.entry("startY", startY),
                 Map.entry("endX", endX),
@@ -91,7 +113,7 @@ public class DriverMethods {
 
     public static void dragElemToCoord(WebElement element, int endX,
                                        int endY, int speed) {
-        driver.executeScript("mobile: dragGesture", Map.ofEntries(
+        driver().executeScript("mobile: dragGesture", Map.ofEntries(
                 Map.entry("elementId", ((RemoteWebElement) element).getId()),
                 Map.entry("endX", endX),
                 Map.entry("endY", endY),
@@ -105,27 +127,85 @@ public class DriverMethods {
         tap.addAction(finger.createPointerMove(Duration.ofMillis(0), PointerInput.Origin.viewport(), x, y));
         tap.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
         tap.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
-        driver.perform(List.of(tap));
+        driver().perform(List.of(tap));
     }
 
-    public static String getDeviceInfo () {
-        String deviceManufacturer = (String) driver.executeScript("mobile: shell", Map.ofEntries(
-                Map.entry("command", "getprop"),
-//                Map.entry("args", "ro.product.brand"),
-                Map.entry("args", "ro.product.manufacturer")
-        ));
+    // Several gestures in one actions call, e.g. DriverMethods.gestures().swipe(...).pause(...).swipe(...).perform()
+    public static GestureComposer gestures() {
+        return new GestureComposer(driver());
+    }
 
-        String deviceModel = (String) driver.executeScript("mobile: shell", Map.ofEntries(
-                Map.entry("command", "getprop"),
-//                Map.entry("args", "ro.product.brand"),
-                Map.entry("args", "ro.product.model")
+    // Separates the outputs of the commands in one shellBatch() call
+    private static final String SHELL_BOUNDARY = "__SHELL_BOUNDARY__";
+    private static final Map<String, Map<String, String>> deviceProperties = new ConcurrentHashMap<>();
+    private static final Pattern GETPROP_LINE = Pattern.compile("^\\[(.+?)]: \\[(.*)]\\s*$", Pattern.MULTILINE);
+
+    // Runs several shell commands in one mobile: shell round trip and returns each command's output
+    public static List<String> shellBatch(String... commands) {
+        String script = String.join("; echo " + SHELL_BOUNDARY + "; ", commands);
+        String output = (String) driver().executeScript("mobile: shell", Map.ofEntries(
+                Map.entry("command", "sh"),
+                Map.entry("args", List.of("-c", "'" + script.replace("'", "'\\''") + "'"))
         ));
+        List<String> results = new ArrayList<>();
+        for (String part : (output == null ? "" : output).split(SHELL_BOUNDARY, -1)) {
+            results.add(part.trim());
+        }
+        return results;
+    }
+
+    // All device properties, fetched in a single call the first time a device is seen in this run
+    public static Map<String, String> getDeviceProperties() {
+        return deviceProperties.computeIfAbsent(deviceKey(), key -> loadDeviceProperties());
+    }
+
+    public static String getDeviceProperty(String name) {
+        return getDeviceProperties().get(name);
+    }
 
-        String deviceOSVersion = (String) driver.executeScript("mobile: shell", Map.ofEntries(
-                Map.entry("command", "getprop"),
-//                Map.entry("args", "ro.product.brand"),
-                Map.entry("args", "ro.product.build.version.release")
+    private static Map<String, String> loadDeviceProperties() {
+        Map<String, String> properties = new HashMap<>();
+        Object platformName = driver().getCapabilities().getCapability("platformName");
+        if (platformName != null && "ios".equalsIgnoreCase(platformName.toString())) {
+            Object info = driver().executeScript("mobile: deviceInfo");
+            if (info instanceof Map) {
+                ((Map<?, ?>) info).forEach((key, value) -> properties.put(String.valueOf(key), String.valueOf(value)));
+            }
+            return properties;
+        }
+        // getprop without arguments dumps every property as "[name]: [value]"
+        String dump = (String) driver().executeScript("mobile: shell", Map.ofEntries(
+                Map.entry("command", "getprop")
         ));
-        return "Device Manufacturer: " + deviceManufacturer + ", Model: " + deviceModel + ", OS Version: " + deviceOSVersion;
+        Matcher matcher = GETPROP_LINE.matcher(dump == null ? "" : dump);
+        while (matcher.find()) {
+            properties.put(matcher.group(1), matcher.group(2));
+        }
+        return properties;
+    }
+
+    private static String deviceKey() {
+        String udid = capability("appium:udid", "udid", "appium:deviceUDID", "deviceUDID");
+        return udid != null ? udid : String.valueOf(driver().getSessionId());
+    }
+
+    public static String getDeviceInfo () {
+        Map<String, String> properties = getDeviceProperties();
+        if (properties.containsKey("ro.product.model")) {
+            String deviceOSVersion = properties.getOrDefault("ro.product.build.version.release", properties.get("ro.build.version.release"));
+            return "Device Manufacturer: " + properties.get("ro.product.manufacturer") + ", Model: " + properties.get("ro.product.model") + ", OS Version: " + deviceOSVersion;
+        }
+        // XCUITest's deviceInfo has no OS version; the session capabilities carry it
+        return "Device Manufacturer: Apple, Model: " + properties.get("model") + ", OS Version: " + capability("appium:platformVersion", "platformVersion");
+    }
+
+    private static String capability(String... names) {
+        for (String name : names) {
+            Object value = driver().getCapabilities().getCapability(name);
+            if (value != null) {
+                return value.toString();
+            }
+        }
+        return null;
     }
 }
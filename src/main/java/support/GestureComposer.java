@@ -0,0 +1,201 @@
+package support;
+
+import io.appium.java_client.AppiumDriver;
+
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Interaction;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds several taps, swipes, drags and multi-finger gestures into one W3C actions call.
+// Each finger is an input source; gestures are padded with zero pauses so all fingers stay on the same tick.
+public class GestureComposer {
+
+    private static final Duration TAP_HOLD = Duration.ofMillis(50);
+
+    private final AppiumDriver driver;
+    private final List<GestureMacro.Step> steps = new ArrayList<>();
+    // Element rects are read once per composer, however many gestures use the element
+    private final Map<WebElement, Rectangle> rects = new IdentityHashMap<>();
+
+    public GestureComposer(AppiumDriver driver) {
+        this.driver = driver;
+    }
+
+    public GestureComposer tap(int x, int y) {
+        steps.add(new GestureMacro.Step("tap", x, y));
+        return this;
+    }
+
+    public GestureComposer tap(WebElement element) {
+        Rectangle rect = rectOf(element);
+        return tap(rect.getX() + rect.getWidth() / 2, rect.getY() + rect.getHeight() / 2);
+    }
+
+    public GestureComposer swipe(int startX, int startY, int endX, int endY, Duration duration) {
+        steps.add(new GestureMacro.Step("swipe", startX, startY, endX, endY, (int) duration.toMillis()));
+        return this;
+    }
+
+    // Swipes across the element's middle, covering the given share of its width or height
+    public GestureComposer swipe(WebElement element, String direction, double percent, Duration duration) {
+        Rectangle rect = rectOf(element);
+        int centerX = rect.getX() + rect.getWidth() / 2;
+        int centerY = rect.getY() + rect.getHeight() / 2;
+        int dx = (int) (rect.getWidth() * percent / 2);
+        int dy = (int) (rect.getHeight() * percent / 2);
+        switch (direction.toLowerCase()) {
+            case "left":
+                return swipe(centerX + dx, centerY, centerX - dx, centerY, duration);
+            case "right":
+                return swipe(centerX - dx, centerY, centerX + dx, centerY, duration);
+            case "up":
+                return swipe(centerX, centerY + dy, centerX, centerY - dy, duration);
+            case "down":
+                return swipe(centerX, centerY - dy, centerX, centerY + dy, duration);
+            default:
+                throw new IllegalArgumentException("Unknown swipe direction: " + direction);
+        }
+    }
+
+    public GestureComposer drag(int startX, int startY, int endX, int endY, Duration hold, Duration duration) {
+        steps.add(new GestureMacro.Step("drag", startX, startY, endX, endY, (int) hold.toMillis(), (int) duration.toMillis()));
+        return this;
+    }
+
+    public GestureComposer drag(WebElement element, int endX, int endY, Duration hold, Duration duration) {
+        Rectangle rect = rectOf(element);
+        return drag(rect.getX() + rect.getWidth() / 2, rect.getY() + rect.getHeight() / 2, endX, endY, hold, duration);
+    }
+
+    // Two fingers moving apart (zoom in) or together (zoom out) around a center point
+    public GestureComposer pinch(int centerX, int centerY, int startDistance, int endDistance, Duration duration) {
+        steps.add(new GestureMacro.Step("pinch", centerX, centerY, startDistance, endDistance, (int) duration.toMillis()));
+        return this;
+    }
+
+    public GestureComposer pinch(WebElement element, double startShare, double endShare, Duration duration) {
+        Rectangle rect = rectOf(element);
+        return pinch(rect.getX() + rect.getWidth() / 2, rect.getY() + rect.getHeight() / 2,
+                (int) (rect.getWidth() * startShare), (int) (rect.getWidth() * endShare), duration);
+    }
+
+    // Gives animations (e.g. a slide transition) time to settle between gestures
+    public GestureComposer pause(Duration duration) {
+        steps.add(new GestureMacro.Step("pause", (int) duration.toMillis()));
+        return this;
+    }
+
+    public GestureComposer append(GestureMacro macro) {
+        steps.addAll(macro.getSteps());
+        return this;
+    }
+
+    public GestureMacro toMacro(String name) {
+        return new GestureMacro(name, steps);
+    }
+
+    public void perform() {
+        if (steps.isEmpty()) {
+            return;
+        }
+        List<Sequence> sequences = compose(steps);
+        System.out.println("--- GestureComposer: Performing " + steps.size() + " gesture step(s) with " + sequences.size() + " finger(s) in one call");
+        driver.perform(sequences);
+    }
+
+    private Rectangle rectOf(WebElement element) {
+        return rects.computeIfAbsent(element, WebElement::getRect);
+    }
+
+    static List<Sequence> compose(List<GestureMacro.Step> steps) {
+        int fingerCount = 1;
+        for (GestureMacro.Step step : steps) {
+            if (step.type.equals("pinch")) {
+                fingerCount = 2;
+            }
+        }
+        List<PointerInput> fingers = new ArrayList<>();
+        List<List<Interaction>> actions = new ArrayList<>();
+        for (int i = 0; i < fingerCount; i++) {
+            fingers.add(new PointerInput(PointerInput.Kind.TOUCH, "finger" + (i + 1)));
+            actions.add(new ArrayList<>());
+        }
+
+        PointerInput first = fingers.get(0);
+        for (GestureMacro.Step step : steps) {
+            int[] a = step.args;
+            List<Interaction> main = actions.get(0);
+            switch (step.type) {
+                case "tap":
+                    press(first, main, a[0], a[1]);
+                    main.add(new Pause(first, TAP_HOLD));
+                    main.add(first.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                    break;
+                case "swipe":
+                    press(first, main, a[0], a[1]);
+                    main.add(first.createPointerMove(Duration.ofMillis(a[4]), PointerInput.Origin.viewport(), a[2], a[3]));
+                    main.add(first.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                    break;
+                case "drag":
+                    press(first, main, a[0], a[1]);
+                    main.add(new Pause(first, Duration.ofMillis(a[4])));
+                    main.add(first.createPointerMove(Duration.ofMillis(a[5]), PointerInput.Origin.viewport(), a[2], a[3]));
+                    main.add(first.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                    break;
+                case "pause":
+                    main.add(new Pause(first, Duration.ofMillis(a[0])));
+                    break;
+                case "pinch":
+                    for (int f = 0; f < 2; f++) {
+                        int side = f == 0 ? -1 : 1;
+                        PointerInput finger = fingers.get(f);
+                        List<Interaction> own = actions.get(f);
+                        press(finger, own, a[0] + side * a[2] / 2, a[1]);
+                        own.add(finger.createPointerMove(Duration.ofMillis(a[4]), PointerInput.Origin.viewport(), a[0] + side * a[3] / 2, a[1]));
+                        own.add(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown gesture step: " + step);
+            }
+            pad(fingers, actions);
+        }
+
+        List<Sequence> sequences = new ArrayList<>();
+        for (int i = 0; i < fingerCount; i++) {
+            Sequence sequence = new Sequence(fingers.get(i), 0);
+            for (Interaction interaction : actions.get(i)) {
+                sequence.addAction(interaction);
+            }
+            sequences.add(sequence);
+        }
+        return sequences;
+    }
+
+    private static void press(PointerInput finger, List<Interaction> actions, int x, int y) {
+        actions.add(finger.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), x, y));
+        actions.add(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+    }
+
+    // A tick lasts as long as its longest action, so zero pauses line the fingers up without adding time
+    private static void pad(List<PointerInput> fingers, List<List<Interaction>> actions) {
+        int length = 0;
+        for (List<Interaction> own : actions) {
+            length = Math.max(length, own.size());
+        }
+        for (int i = 0; i < fingers.size(); i++) {
+            while (actions.get(i).size() < length) {
+                actions.get(i).add(new Pause(fingers.get(i), Duration.ZERO));
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package support;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A recorded gesture flow with resolved coordinates, replayable in one perform() call.
+// Saved as one line per step: "tap 540 1200", "swipe 900 1000 100 1000 300", "pause 400", ...
+public class GestureMacro {
+
+    private static final Map<String, GestureMacro> recorded = new ConcurrentHashMap<>();
+    // Numbers per step type, in the order GestureComposer.compose() reads them
+    private static final Map<String, Integer> ARG_COUNTS = new LinkedHashMap<>();
+
+    static {
+        ARG_COUNTS.put("tap", 2);
+        ARG_COUNTS.put("swipe", 5);
+        ARG_COUNTS.put("drag", 6);
+        ARG_COUNTS.put("pinch", 5);
+        ARG_COUNTS.put("pause", 1);
+    }
+
+    private final String name;
+    private final List<Step> steps;
+
+    static class Step {
+        final String type;
+        final int[] args;
+
+        Step(String type, int... args) {
+            this.type = type;
+            this.args = args;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder line = new StringBuilder(type);
+            for (int arg : args) {
+                line.append(' ').append(arg);
+            }
+            return line.toString();
+        }
+
+        // Throws with the reason; load() adds the file and line
+        static Step parse(String line) {
+            String[] parts = line.trim().split("\\s+");
+            Integer expected = ARG_COUNTS.get(parts[0]);
+            if (expected == null) {
+                throw new IllegalArgumentException("unknown gesture step '" + parts[0] + "', expected one of " + ARG_COUNTS.keySet());
+            }
+            if (parts.length - 1 != expected) {
+                throw new IllegalArgumentException("'" + parts[0] + "' takes " + expected + " number(s), got " + (parts.length - 1));
+            }
+            try {
+                int[] args = Arrays.stream(parts, 1, parts.length).mapToInt(Integer::parseInt).toArray();
+                return new Step(parts[0], args);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a whole number: " + e.getMessage());
+            }
+        }
+    }
+
+    GestureMacro(String name, List<Step> steps) {
+        this.name = name;
+        this.steps = List.copyOf(steps);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    public void perform() {
+        GestureComposer composer = DriverMethods.gestures();
+        composer.append(this);
+        composer.perform();
+    }
+
+    // Keeps the macro for replay by name later in the run
+    public GestureMacro record() {
+        recorded.put(name, this);
+        return this;
+    }
+
+    public static GestureMacro get(String name) {
+        GestureMacro macro = recorded.get(name);
+        if (macro == null) {
+            throw new IllegalArgumentException("No gesture macro recorded as '" + name + "'");
+        }
+        return macro;
+    }
+
+    public void save(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Step step : steps) {
+            lines.add(step.toString());
+        }
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    public static GestureMacro load(String name, File file) throws IOException {
+        List<Step> steps = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank() || line.trim().startsWith("#")) {
+                continue;
+            }
+            try {
+                steps.add(Step.parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid gesture macro line " + file + ":" + (i + 1) + " \"" + line.trim() + "\": " + e.getMessage(), e);
+            }
+        }
+        return new GestureMacro(name, steps);
+    }
+
+    @Override
+    public String toString() {
+        return "GestureMacro " + name + " " + steps;
+    }
+}
@@ -0,0 +1,52 @@
+package support;
+
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.remote.AppiumCommandExecutor;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.Response;
+
+import java.net.URL;
+
+// Times every command the driver sends, including newSession and quit
+public class InstrumentedCommandExecutor extends AppiumCommandExecutor {
+
+    private final URL server;
+
+    public InstrumentedCommandExecutor(URL addressOfRemoteServer) {
+        this(addressOfRemoteServer, addressOfRemoteServer);
+    }
+
+    // appiumServer is the server whose log has the server-side times; it differs from the address behind a recording proxy
+    public InstrumentedCommandExecutor(URL addressOfRemoteServer, URL appiumServer) {
+        super(MobileCommand.commandRepository, addressOfRemoteServer);
+        this.server = appiumServer;
+    }
+
+    @Override
+    public Response execute(Command command) throws WebDriverException {
+        String name = commandName(command);
+        String sessionId = command.getSessionId() == null ? null : command.getSessionId().toString();
+        ServerTimeAttribution.Entry entry = ServerTimeAttribution.commandStarted(server, sessionId, name);
+        long start = System.nanoTime();
+        try {
+            return super.execute(command);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            CommandMetrics.record(name, elapsed);
+            ServerTimeAttribution.commandFinished(entry, elapsed);
+        }
+    }
+
+    // "mobile: xyz" scripts are separate commands on the server, so they get their own series
+    static String commandName(Command command) {
+        if ("executeScript".equals(command.getName()) && command.getParameters() != null) {
+            Object script = command.getParameters().get("script");
+            if (script instanceof String && ((String) script).startsWith("mobile:")) {
+                return (String) script;
+            }
+        }
+        return command.getName();
+    }
+}
@@ -0,0 +1,35 @@
+package support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Wall-clock cost of the fixed startup phases (server probe/start, capabilities, session creation)
+public class PhaseTimings {
+
+    private static final Map<String, LatencyHistogram> phases = new LinkedHashMap<>();
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static long record(String phase, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        synchronized (phases) {
+            phases.computeIfAbsent(phase, key -> new LatencyHistogram()).recordNanos(elapsed);
+        }
+        System.out.println("--- PhaseTimings: " + phase + " took " + elapsed / 1_000_000 + " ms");
+        return elapsed / 1_000_000;
+    }
+
+    public static Map<String, LatencyHistogram> getPhases() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+
+    public static void reset() {
+        synchronized (phases) {
+            phases.clear();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Splits each command's latency into time spent in the Appium server/driver and time spent in the client and network.
+// The server side comes from the "[HTTP] <--" lines of the server logs, matched to the session's commands in order.
+public class ServerTimeAttribution {
+
+    private static final Pattern RESPONSE = Pattern.compile(
+            "^(?:(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}[:.]\\d{3})\\D.*?)?\\[HTTP\\] <-- (\\w+) (\\S+) (\\d{3}) (\\d+(?:\\.\\d+)?) ms");
+    private static final Pattern SESSION = Pattern.compile("/session/([^/?\\s]+)");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss:SSS");
+    // Log timestamps have millisecond resolution and are written just before the response goes out
+    private static final long CLOCK_TOLERANCE_MS = 50;
+    private static final long POLL_MS = 100;
+
+    private static final Map<String, Deque<Entry>> pendingBySession = new ConcurrentHashMap<>();
+    private static final ThreadLocal<List<Entry>> timeline = ThreadLocal.withInitial(ArrayList::new);
+    private static final Map<String, Follower> followers = new ConcurrentHashMap<>();
+
+    public static class Entry {
+        private final String command;
+        private final long startMillis;
+        private volatile long endMillis;
+        private volatile double clientMs = -1;
+        private volatile double serverMs = -1;
+        private volatile boolean settled;
+
+        Entry(String command, long startMillis) {
+            this.command = command;
+            this.startMillis = startMillis;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public double getClientMs() {
+            return clientMs;
+        }
+
+        // -1 when the server log had no matching line
+        public double getServerMs() {
+            return serverMs;
+        }
+    }
+
+    // Called before the command is sent, so a log line read early still finds its command
+    public static Entry commandStarted(URL server, String sessionId, String command) {
+        Entry entry = new Entry(command, System.currentTimeMillis());
+        timeline.get().add(entry);
+        if (sessionId != null && followers.containsKey(key(server))) {
+            Deque<Entry> pending = pendingBySession.computeIfAbsent(sessionId, key -> new ArrayDeque<>());
+            synchronized (pending) {
+                pending.add(entry);
+            }
+        } else {
+            entry.settled = true;
+        }
+        return entry;
+    }
+
+    public static void commandFinished(Entry entry, long nanos) {
+        entry.clientMs = nanos / 1_000_000.0;
+        entry.endMillis = System.currentTimeMillis();
+    }
+
+    static void serverResponse(String sessionId, long responseMillis, double serverMs) {
+        Deque<Entry> pending = pendingBySession.get(sessionId);
+        if (pending == null) {
+            return;
+        }
+        synchronized (pending) {
+            while (!pending.isEmpty()) {
+                Entry head = pending.poll();
+                // A command that finished before the server answered this one never reached the server
+                if (responseMillis > 0 && head.endMillis > 0 && head.endMillis + CLOCK_TOLERANCE_MS < responseMillis) {
+                    head.settled = true;
+                    continue;
+                }
+                head.serverMs = serverMs;
+                head.settled = true;
+                return;
+            }
+        }
+    }
+
+    // Follows the log of the server at the given URL from its current end; earlier lines belong to earlier runs
+    public static synchronized void follow(File log, URL server) {
+        if (followers.containsKey(key(server))) {
+            return;
+        }
+        Follower follower = new Follower(log);
+        followers.put(key(server), follower);
+        follower.start();
+        System.out.println("--- ServerTimeAttribution: Following " + log + " for " + server);
+    }
+
+    public static synchronized void stopAll() {
+        followers.values().forEach(Follower::interrupt);
+        followers.clear();
+    }
+
+    private static String key(URL server) {
+        return server.getHost() + ":" + server.getPort();
+    }
+
+    // Starts a new timeline for the calling scenario thread
+    public static void startScenario() {
+        timeline.get().clear();
+    }
+
+    // Writes the scenario's commands with their client, server and client-minus-server times; returns the totals line.
+    // The location (e.g. "tests.feature:12") keeps outline examples and same-named scenarios in separate files.
+    public static String writeTimeline(String scenario, String location, File dir) {
+        List<Entry> entries = new ArrayList<>(timeline.get());
+        timeline.get().clear();
+        awaitServerTimes(entries);
+        for (Deque<Entry> pending : pendingBySession.values()) {
+            synchronized (pending) {
+                pending.removeIf(entries::contains);
+            }
+        }
+
+        StringBuilder csv = new StringBuilder("offset_ms,command,client_ms,server_ms,client_network_ms\n");
+        long first = entries.isEmpty() ? 0 : entries.get(0).startMillis;
+        double clientTotal = 0;
+        double serverTotal = 0;
+        int matched = 0;
+        for (Entry entry : entries) {
+            boolean known = entry.serverMs >= 0;
+            csv.append(entry.startMillis - first).append(',')
+                    .append(entry.command.replace(',', ' ')).append(',')
+                    .append(String.format(Locale.ROOT, "%.1f", entry.clientMs)).append(',')
+                    .append(known ? String.format(Locale.ROOT, "%.1f", entry.serverMs) : "").append(',')
+                    .append(known ? String.format(Locale.ROOT, "%.1f", Math.max(0, entry.clientMs - entry.serverMs)) : "")
+                    .append('\n');
+            clientTotal += Math.max(0, entry.clientMs);
+            if (known) {
+                serverTotal += entry.serverMs;
+                matched++;
+            }
+        }
+        String summary = String.format(Locale.ROOT, "%d command(s), %.0f ms client total, %.0f ms in the server/driver (%d matched in the log)",
+                entries.size(), clientTotal, serverTotal, matched);
+        try {
+            dir.mkdirs();
+            File file = new File(dir, (scenario + "_" + location).replaceAll("[^A-Za-z0-9._-]+", "_") + ".csv");
+            Files.writeString(file.toPath(), csv, StandardCharsets.UTF_8);
+            System.out.println("--- ServerTimeAttribution: " + summary + ", timeline: " + file);
+        } catch (IOException e) {
+            System.err.println("!!! ServerTimeAttribution: Could not write timeline: " + e.getMessage());
+        }
+        return summary;
+    }
+
+    // The log is read on a timer, so the last commands' lines may still be on their way
+    private static void awaitServerTimes(List<Entry> entries) {
+        long deadline = System.currentTimeMillis() + 5 * POLL_MS;
+        while (System.currentTimeMillis() < deadline && entries.stream().anyMatch(entry -> !entry.settled)) {
+            try {
+                Thread.sleep(POLL_MS / 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    static void parse(String line) {
+        Matcher response = RESPONSE.matcher(line);
+        if (!response.find()) {
+            return;
+        }
+        Matcher session = SESSION.matcher(response.group(3));
+        if (!session.find()) {
+            return;
+        }
+        long responseMillis = 0;
+        if (response.group(1) != null) {
+            responseMillis = LocalDateTime.parse(response.group(1).replace('.', ':'), TIMESTAMP)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        serverResponse(session.group(1), responseMillis, Double.parseDouble(response.group(5)));
+    }
+
+    private static class Follower extends Thread {
+        private final File log;
+
+        Follower(File log) {
+            super("server-log-follower");
+            this.log = log;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long position = log.length();
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            while (!isInterrupted()) {
+                try {
+                    long length = log.length();
+                    if (length < position) {
+                        // Log was recreated by a server restart
+                        position = 0;
+                        line.reset();
+                    }
+                    if (length > position) {
+                        try (RandomAccessFile file = new RandomAccessFile(log, "r")) {
+                            file.seek(position);
+                            int read;
+                            while ((read = file.read(buffer)) > 0) {
+                                position += read;
+                                for (int i = 0; i < read; i++) {
+                                    if (buffer[i] == '\n') {
+                                        parse(line.toString(StandardCharsets.UTF_8));
+                                        line.reset();
+                                    } else {
+                                        line.write(buffer[i]);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    Thread.sleep(POLL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    System.err.println("!!! ServerTimeAttribution: Could not read " + log + ": " + e.getMessage());
+                    try {
+                        Thread.sleep(POLL_MS * 10);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
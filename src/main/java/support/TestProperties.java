@@ -6,6 +6,10 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class TestProperties {
@@ -72,13 +76,86 @@ public class TestProperties {
             desiredCapabilities.setCapability("appium:fullContextList", getProperty("fullContextList"));
         }
 
+        applyCapabilityProfiles();
         System.out.println("--- TestProperties: Desired Capabilities loaded: " + desiredCapabilities.toJson());
     }
 
+    // capabilityProfile=a,b applies every profile.<name>.<capability>=value entry on top of the base capabilities
+    private static void applyCapabilityProfiles() {
+        String selected = getProperty("capabilityProfile", "");
+        for (String name : selected.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String prefix = "profile." + name + ".";
+            boolean found = false;
+            for (String key : props.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    String capability = key.substring(prefix.length());
+                    desiredCapabilities.setCapability(capability.contains(":") ? capability : "appium:" + capability, typed(props.getProperty(key).trim()));
+                    found = true;
+                }
+            }
+            if (found) {
+                System.out.println("--- TestProperties: Applied capability profile: " + name);
+            } else {
+                System.err.println("!!! Warning: Capability profile '" + name + "' has no profile." + name + ".* entries.");
+            }
+        }
+    }
+
+    // Appium validates capability types, so profile values are passed as booleans and numbers where they look like one
+    private static Object typed(String value) {
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.parseBoolean(value);
+        }
+        if (value.matches("-?\\d{1,9}")) {
+            return Integer.parseInt(value);
+        }
+        return value;
+    }
+
     public static String getProperty(String name) {
         return props.getProperty(name);
     }
 
+    // Run-level settings: a -D system property wins over the platform config file
+    public static String getProperty(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            value = props.getProperty(name);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    // Devices are declared as devices=a,b plus device.<name>.<capability>=value entries
+    public static List<DeviceConfig> getDevices() {
+        List<DeviceConfig> devices = new ArrayList<>();
+        String declared = getProperty("devices", "");
+        for (String name : declared.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String prefix = "device." + name + ".";
+            Map<String, Object> capabilities = new LinkedHashMap<>();
+            for (String key : props.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    String capability = key.substring(prefix.length());
+                    capabilities.put(capability.contains(":") ? capability : "appium:" + capability, props.getProperty(key).trim());
+                }
+            }
+            Object udid = capabilities.get("appium:udid");
+            devices.add(new DeviceConfig(name, udid == null ? null : udid.toString(), capabilities));
+        }
+        if (devices.isEmpty()) {
+            // No pool declared: the single device described by the platform capabilities
+            devices.add(new DeviceConfig("default", getProperty("udid"), new LinkedHashMap<>()));
+        }
+        return devices;
+    }
+
     public static DesiredCapabilities getLoadedCapabilities() {
         if (desiredCapabilities.getCapability("platformName") == null) {
              System.err.println("!!! Warning: Attempting to get capabilities before they are loaded or loading failed.");
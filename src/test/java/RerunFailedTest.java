@@ -0,0 +1,69 @@
+import base.BaseTest;
+import base.RerunStage;
+import base.ScenarioScheduler;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import support.ServerTimeAttribution;
+
+import java.util.List;
+
+// Runs right after RunCucumberTest in the same suite and JVM, only for the scenarios it wrote to target/rerun.txt.
+// Disable with -DrerunFailed=false.
+@CucumberOptions(
+    features = "@" + RerunStage.RERUN_FILE,
+    glue = "stepdefinitions",
+    plugin = {
+        "pretty",
+        "html:target/cucumber-rerun-reports.html",
+        "json:" + RerunStage.RERUN_JSON
+    },
+    monochrome = true
+)
+public class RerunFailedTest extends AbstractTestNGCucumberTests {
+
+    private boolean active;
+
+    // TestNG creates every class of the suite before running any, so the main pass knows a rerun follows
+    public RerunFailedTest() {
+        RerunStage.schedule();
+    }
+
+    // Cucumber is only set up when there is something to rerun; with no runner the scenario list is empty
+    @Override
+    @BeforeClass(alwaysRun = true)
+    public void setUpClass(ITestContext context) {
+        List<String> failed = RerunStage.failedScenarios();
+        if (!RerunStage.isEnabled() || failed.isEmpty()) {
+            System.out.println("--- RerunFailedTest: No failed scenarios to rerun ---");
+            if (RerunStage.isPending()) {
+                // The main pass kept the server and sessions up for a rerun that has nothing to run
+                BaseTest.shutdownSessionPoolLogic();
+                BaseTest.stopServerLogic();
+                ServerTimeAttribution.stopAll();
+            }
+            return;
+        }
+        RerunStage.begin(failed);
+        active = true;
+        super.setUpClass(context);
+    }
+
+    @Override
+    @DataProvider(parallel = true)
+    public Object[][] scenarios() {
+        return active ? ScenarioScheduler.orderLongestFirst(super.scenarios()) : new Object[0][0];
+    }
+
+    @Override
+    @AfterClass(alwaysRun = true)
+    public void tearDownClass() {
+        if (active) {
+            super.tearDownClass();
+            RerunStage.mergeReports();
+        }
+    }
+}
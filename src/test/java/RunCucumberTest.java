@@ -2,8 +2,11 @@
 // package runners; // Uncomment or set correct package if needed
 
 // REMOVE: import base.BaseTest;
+import base.ImpactIndex;
+import base.ScenarioScheduler;
 import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
+import org.testng.annotations.DataProvider;
 
 @CucumberOptions(
     features = "src/test/java/resources/features",
@@ -11,13 +14,22 @@ import io.cucumber.testng.CucumberOptions;
     plugin = {
         "pretty",
         "html:target/cucumber-reports.html",
-        "json:target/cucumber.json"
+        "json:target/cucumber.json",
+        "rerun:target/rerun.txt"
     },
     monochrome = true
 )
 // NO LONGER extends BaseTest
 public class RunCucumberTest extends AbstractTestNGCucumberTests {
-    // Body is likely empty now
+
+    // Scenarios run on the TestNG data provider pool; size it with -Dthreads=N.
+    // The pool works as a shared queue: each free thread takes the next scenario and a free device.
+    // -DimpactSince=<git revision> keeps only the scenarios the change touches.
+    @Override
+    @DataProvider(parallel = true)
+    public Object[][] scenarios() {
+        return ScenarioScheduler.orderLongestFirst(ImpactIndex.filter(super.scenarios()));
+    }
 }
 
 
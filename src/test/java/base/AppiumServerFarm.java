@@ -0,0 +1,324 @@
+package base;
+
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.appium.java_client.service.local.AppiumServiceBuilder;
+import io.appium.java_client.service.local.flags.GeneralServerFlag;
+
+import support.PhaseTimings;
+import support.ServerTimeAttribution;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AppiumServerFarm {
+
+    private static final List<ServerInstance> instances = new CopyOnWriteArrayList<>();
+    private static final Set<Integer> reservedPorts = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean shutdownHookAdded = new AtomicBoolean();
+    private static volatile CompletableFuture<Void> starting;
+
+    public static class ServerInstance {
+        private final int index;
+        private final int port;
+        private final File logFile;
+        private final URL url;
+        // Null for servers this run attached to but does not own
+        private final AppiumDriverLocalService service;
+        private final AtomicInteger activeSessions = new AtomicInteger();
+
+        ServerInstance(int index, int port, File logFile, AppiumDriverLocalService service) {
+            this.index = index;
+            this.port = port;
+            this.logFile = logFile;
+            this.service = service;
+            this.url = service.getUrl();
+        }
+
+        ServerInstance(int index, URL url) {
+            this.index = index;
+            this.port = url.getPort();
+            this.logFile = null;
+            this.service = null;
+            this.url = url;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public File getLogFile() {
+            return logFile;
+        }
+
+        public URL getUrl() {
+            return url;
+        }
+
+        public boolean isExternal() {
+            return service == null;
+        }
+
+        public boolean isRunning() {
+            return service == null || service.isRunning();
+        }
+
+        public int getActiveSessions() {
+            return activeSessions.get();
+        }
+    }
+
+    // A server slot for one session, together with the device-side ports reserved for it
+    public static class ServerLease {
+        private final ServerInstance server;
+        private final Map<String, Integer> systemPorts;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ServerLease(ServerInstance server, Map<String, Integer> systemPorts) {
+            this.server = server;
+            this.systemPorts = systemPorts;
+        }
+
+        public ServerInstance getServer() {
+            return server;
+        }
+
+        public URL getUrl() {
+            return server.getUrl();
+        }
+
+        public Map<String, Integer> getSystemPorts() {
+            return systemPorts;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                server.activeSessions.decrementAndGet();
+                reservedPorts.removeAll(systemPorts.values());
+            }
+        }
+    }
+
+    public static void start(int count) {
+        System.out.println("--- AppiumServerFarm: Starting " + count + " Appium server(s)...");
+        addShutdownHook();
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<ServerInstance>> starting = new ArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                int index = i;
+                starting.add(executor.submit(() -> startInstance(index)));
+            }
+            List<Exception> failures = new ArrayList<>();
+            for (Future<ServerInstance> future : starting) {
+                try {
+                    instances.add(future.get());
+                } catch (ExecutionException e) {
+                    failures.add((Exception) e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add(e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                stopInstances();
+                RuntimeException error = new RuntimeException("Appium server failed to start", failures.get(0));
+                failures.stream().skip(1).forEach(error::addSuppressed);
+                throw error;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Returns right away; the first lease() waits for the servers, so startup overlaps with the rest of the run setup
+    public static synchronized void startInBackground(int count) {
+        if (count <= 0) {
+            return;
+        }
+        starting = CompletableFuture.runAsync(() -> {
+            long start = PhaseTimings.start();
+            start(count);
+            PhaseTimings.record("appium server start", start);
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "appium-farm-start");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    public static boolean isStarting() {
+        CompletableFuture<Void> current = starting;
+        return current != null && !current.isDone();
+    }
+
+    public static void awaitStarted() {
+        CompletableFuture<Void> current = starting;
+        if (current == null) {
+            return;
+        }
+        boolean waiting = !current.isDone();
+        long start = PhaseTimings.start();
+        try {
+            current.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } finally {
+            starting = null;
+            if (waiting) {
+                PhaseTimings.record("wait for appium server", start);
+            }
+        }
+    }
+
+    // An Appium server answering /status with ready (or without a ready flag, as Appium 1 does)
+    public static boolean isHealthy(URL url) {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url.toString().replaceAll("/+$", "") + "/status"))
+                    .timeout(Duration.ofSeconds(3))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 && !response.body().replace(" ", "").contains("\"ready\":false");
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Uses a server somebody else runs; it takes sessions like a local one but is never stopped by the farm
+    public static ServerInstance attach(URL url) {
+        ServerInstance instance = new ServerInstance(instances.size() + 1, url);
+        instances.add(instance);
+        System.out.println("--- AppiumServerFarm: Attached to server at: " + url);
+        return instance;
+    }
+
+    private static ServerInstance startInstance(int index) {
+        int port = reservePort();
+        File logFile = new File("appium-server-logs-" + index + ".log");
+        AppiumServiceBuilder appiumServiceBuilder = new AppiumServiceBuilder();
+        appiumServiceBuilder.usingPort(port);
+        appiumServiceBuilder.withLogFile(logFile);
+        appiumServiceBuilder.withArgument(GeneralServerFlag.RELAXED_SECURITY);
+        // Plain, timestamped lines so ServerTimeAttribution can read the log
+        appiumServiceBuilder.withArgument(GeneralServerFlag.LOG_TIMESTAMP);
+        appiumServiceBuilder.withArgument(GeneralServerFlag.LOG_NO_COLORS);
+        appiumServiceBuilder.withArgument(GeneralServerFlag.LOCAL_TIMEZONE);
+        AppiumDriverLocalService service = appiumServiceBuilder.build();
+        service.clearOutPutStreams();
+        try {
+            service.start();
+        } catch (Exception e) {
+            reservedPorts.remove(port);
+            System.err.println("!!! Appium Server #" + index + " failed to start on port " + port + " !!!");
+            throw e;
+        }
+        System.out.println("--- AppiumServerFarm: Server #" + index + " started at: " + service.getUrl() + ", log: " + logFile);
+        ServerTimeAttribution.follow(logFile, service.getUrl());
+        return new ServerInstance(index, port, logFile, service);
+    }
+
+    // Least-loaded server first, so sessions spread evenly over the Node processes
+    public static synchronized ServerLease lease(String platform) {
+        awaitStarted();
+        ServerInstance server = instances.stream()
+                .filter(ServerInstance::isRunning)
+                .min(Comparator.comparingInt(ServerInstance::getActiveSessions).thenComparingInt(ServerInstance::getIndex))
+                .orElseThrow(() -> new IllegalStateException("No running Appium server. Was startServerLogic() called?"));
+        server.activeSessions.incrementAndGet();
+
+        Map<String, Integer> systemPorts = new LinkedHashMap<>();
+        if ("android".equals(platform)) {
+            systemPorts.put("appium:systemPort", reservePort());
+            systemPorts.put("appium:chromedriverPort", reservePort());
+        } else if ("ios".equals(platform)) {
+            systemPorts.put("appium:wdaLocalPort", reservePort());
+        }
+        return new ServerLease(server, systemPorts);
+    }
+
+    public static List<ServerInstance> getInstances() {
+        return List.copyOf(instances);
+    }
+
+    public static boolean isRunning() {
+        return isStarting() || instances.stream().anyMatch(ServerInstance::isRunning);
+    }
+
+    public static void stopAll() {
+        try {
+            awaitStarted();
+        } catch (RuntimeException e) {
+            // Nothing left to stop from a failed start
+        }
+        stopInstances();
+    }
+
+    private static void stopInstances() {
+        List<ServerInstance> stopping = new ArrayList<>(instances);
+        instances.clear();
+        stopping.parallelStream().forEach(instance -> {
+            try {
+                if (!instance.isExternal() && instance.isRunning()) {
+                    instance.service.stop();
+                    System.out.println("--- AppiumServerFarm: Server #" + instance.index + " stopped.");
+                }
+            } catch (Exception e) {
+                System.err.println("!!! Error stopping Appium server #" + instance.index + ": " + e.getMessage());
+            } finally {
+                reservedPorts.remove(instance.port);
+            }
+        });
+    }
+
+    private static void addShutdownHook() {
+        if (shutdownHookAdded.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(AppiumServerFarm::stopAll, "appium-farm-shutdown"));
+        }
+    }
+
+    // The OS hands out a free port; the reserved set keeps two callers from getting the same one
+    static int reservePort() {
+        while (true) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                socket.setReuseAddress(true);
+                int port = socket.getLocalPort();
+                if (reservedPorts.add(port)) {
+                    return port;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not allocate a free port", e);
+            }
+        }
+    }
+}
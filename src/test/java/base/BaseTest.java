@@ -3,32 +3,65 @@ package base;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
-import io.appium.java_client.service.local.AppiumDriverLocalService;
-import io.appium.java_client.service.local.AppiumServiceBuilder;
-import io.appium.java_client.service.local.flags.GeneralServerFlag;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import replay.RecordingProxy;
+import replay.ReplayServer;
 import screens.SchedulePage;
 import screens.WelcomePage;
+import support.CommandMetrics;
 import support.ContextSwitcher;
-import support.DriverMethods;
+import support.DeviceConfig;
+import support.InstrumentedCommandExecutor;
+import support.PhaseTimings;
 import support.TestProperties;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
-import java.time.Duration;
 import java.util.Map;
 
 public class BaseTest {
 
-    public static AppiumDriverLocalService server;
-    public static AppiumDriver driver;
-    public static WebDriverWait wait;
-    public static ContextSwitcher contextSwitcher;
-    public static WelcomePage welcomePage;
-    public static SchedulePage schedulePage;
-    public static String platform;
+    // Every scenario thread owns its session, so parallel scenarios never share a driver
+    private static final ThreadLocal<SessionContext> session = new ThreadLocal<>();
+    private static ReplayServer replayServer;
+
+    public static SessionContext getSession() {
+        return session.get();
+    }
+
+    public static AppiumDriver getDriver() {
+        SessionContext current = session.get();
+        return current == null ? null : current.getDriver();
+    }
+
+    public static WebDriverWait getWait() {
+        SessionContext current = session.get();
+        return current == null ? null : current.getWait();
+    }
+
+    public static ContextSwitcher getContextSwitcher() {
+        SessionContext current = session.get();
+        return current == null ? null : current.getContextSwitcher();
+    }
+
+    public static WelcomePage getWelcomePage() {
+        SessionContext current = session.get();
+        return current == null ? null : current.getWelcomePage();
+    }
+
+    public static SchedulePage getSchedulePage() {
+        SessionContext current = session.get();
+        return current == null ? null : current.getSchedulePage();
+    }
+
+    public static String getPlatform() {
+        SessionContext current = session.get();
+        return current == null ? null : current.getPlatform();
+    }
 
     public static void loadPropertiesLogic() {
         System.out.println("--- BaseTest Logic: Loading properties...");
@@ -36,126 +69,226 @@ public class BaseTest {
         System.out.println("--- BaseTest Logic: Properties loaded.");
     }
 
+    // transport=live talks to Appium directly, record also writes the traffic to a file, replay serves that file instead of a device
+    public static String getTransport() {
+        return TestProperties.getProperty("transport", "live").toLowerCase();
+    }
+
+    private static File getRecordingFile() {
+        return new File(TestProperties.getProperty("transportRecording", "target/recordings/appium-commands.rec"));
+    }
+
     public static void startServerLogic() {
-        System.out.println("--- BaseTest Logic: Starting Appium Server...");
-        AppiumServiceBuilder appiumServiceBuilder = new AppiumServiceBuilder();
-        appiumServiceBuilder.usingPort(4724);
-        appiumServiceBuilder.withLogFile(new File("appium-server-logs.log"));
-        appiumServiceBuilder.withArgument(GeneralServerFlag.RELAXED_SECURITY);
-        // server = AppiumServiceBuilder.buildDefaultService();
-        server = appiumServiceBuilder.build();
-        server.clearOutPutStreams();
+        long config = PhaseTimings.start();
+        TestProperties.getLoadedCapabilities();
+        PhaseTimings.record("config and capabilities", config);
+        if (AppiumServerFarm.isRunning()) {
+            // Kept alive by the runner daemon between runs
+            System.out.println("--- BaseTest Logic: Appium Servers already running: " + AppiumServerFarm.getInstances().size());
+            return;
+        }
+        String transport = getTransport();
         try {
-            server.start();
-            System.out.println("--- BaseTest Logic: Appium Server Started at: " + server.getUrl());
-        } catch (Exception e) {
-            System.err.println("!!! Appium Server failed to start !!! Check if port 4724 is free.");
-            e.printStackTrace();
-            throw new RuntimeException("Appium server failed to start", e);
+            if (transport.equals("replay")) {
+                boolean recordedLatency = !"fast".equalsIgnoreCase(TestProperties.getProperty("replaySpeed", "recorded"));
+                replayServer = new ReplayServer(getRecordingFile(), 0, recordedLatency).start();
+                AppiumServerFarm.attach(replayServer.getUrl());
+                System.out.println("--- BaseTest Logic: Replaying recorded session at " + replayServer.getUrl());
+                return;
+            }
+            if (transport.equals("record")) {
+                RecordingProxy.startRecording(getRecordingFile());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not set up '" + transport + "' transport", e);
         }
+        int servers = Integer.parseInt(TestProperties.getProperty("appiumServers", "1"));
+        String serverUrl = TestProperties.getProperty("appiumServerUrl", "");
+        if (!serverUrl.isEmpty()) {
+            long probe = PhaseTimings.start();
+            URL url;
+            try {
+                url = URI.create(serverUrl).toURL();
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                throw new RuntimeException("Invalid appiumServerUrl: " + serverUrl, e);
+            }
+            boolean healthy = AppiumServerFarm.isHealthy(url);
+            PhaseTimings.record("appium server probe", probe);
+            if (healthy) {
+                AppiumServerFarm.attach(url);
+                servers--;
+            } else {
+                System.out.println("--- BaseTest Logic: No ready Appium server at " + serverUrl + ", starting a local one.");
+            }
+        }
+        // Servers boot while Cucumber, the reports and the first scenario get ready; the first session waits for them
+        System.out.println("--- BaseTest Logic: Starting " + Math.max(servers, 0) + " Appium Server(s) in the background...");
+        AppiumServerFarm.startInBackground(servers);
     }
 
     public static void setupDriverLogic() throws MalformedURLException {
-        System.out.println("--- BaseTest Logic: Setting up driver ---");
-        if (driver == null) {
+        System.out.println("--- BaseTest Logic: Setting up driver (thread " + Thread.currentThread().threadId() + ") ---");
+        if (session.get() != null) {
+            System.out.println("--- BaseTest Logic: Driver already initialized.");
+            return;
+        }
+        DeviceConfig device = DevicePool.acquire();
+        CommandMetrics.setDevice(device.getName());
+        if (SessionPool.isEnabled()) {
+            SessionContext pooled = SessionPool.acquire(device);
+            if (pooled != null) {
+                pooled.attach();
+                session.set(pooled);
+                System.out.println("--- BaseTest Logic: Driver setup complete (pooled session).");
+                return;
+            }
+        }
+        try {
             DesiredCapabilities desiredCapabilities = TestProperties.getLoadedCapabilities();
             if (desiredCapabilities == null || desiredCapabilities.getCapability("platformName") == null) {
                 throw new RuntimeException("DesiredCapabilities or platformName is null. Ensure properties were loaded.");
             }
 
-            platform = desiredCapabilities.getCapability("platformName").toString().toLowerCase();
-            URL serverUrl = server.getUrl();
+            String platform = desiredCapabilities.getCapability("platformName").toString().toLowerCase();
+            AppiumServerFarm.ServerLease lease = AppiumServerFarm.lease(platform);
+            URL serverUrl = lease.getUrl();
+            if (getTransport().equals("record")) {
+                serverUrl = RecordingProxy.forTarget(serverUrl);
+            }
+            desiredCapabilities = new DesiredCapabilities(desiredCapabilities);
+            for (Map.Entry<String, Object> capability : device.getCapabilities().entrySet()) {
+                desiredCapabilities.setCapability(capability.getKey(), capability.getValue());
+            }
+            for (Map.Entry<String, Integer> systemPort : lease.getSystemPorts().entrySet()) {
+                desiredCapabilities.setCapability(systemPort.getKey(), systemPort.getValue());
+            }
+            AppiumDriver driver;
 
             try {
-                System.out.println("--- BaseTest Logic: Creating driver for platform: " + platform + " at URL: " + serverUrl);
+                System.out.println("--- BaseTest Logic: Creating driver for platform: " + platform + " on device " + device + " at URL: " + serverUrl);
+                long create = PhaseTimings.start();
                 if (platform.equals("android")) {
                     System.out.println("--- BaseTest Logic: Desired Capabilities loaded: " + desiredCapabilities.toJson());
-                    driver = new AndroidDriver(serverUrl, desiredCapabilities);
+                    driver = new AndroidDriver(new InstrumentedCommandExecutor(serverUrl, lease.getUrl()), desiredCapabilities);
                 } else if (platform.equals("ios")) {
-                    driver = new IOSDriver(serverUrl, desiredCapabilities);
+                    driver = new IOSDriver(new InstrumentedCommandExecutor(serverUrl, lease.getUrl()), desiredCapabilities);
                 } else {
                     throw new IllegalArgumentException("Unsupported platform: " + platform);
                 }
+                PhaseTimings.record("session create", create);
                 System.out.println("--- BaseTest Logic: Driver Session Created: " + driver.getSessionId());
             } catch (Exception e) {
                 System.err.println("!!! Failed to create Appium Driver session !!!");
                 e.printStackTrace();
-                if (server != null && server.isRunning()) { stopServerLogic(); }
+                lease.release();
                 throw new RuntimeException("Failed to create Appium driver session", e);
             }
 
-            wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-
-            DriverMethods.setDriver(driver);
-            
-            contextSwitcher = new ContextSwitcher(driver, wait);
-            welcomePage = new WelcomePage(driver, wait);
-            schedulePage = new SchedulePage(driver, wait);
+            SessionContext context = new SessionContext(driver, platform, device, lease);
+            SessionPool.register(context);
+            context.attach();
+            session.set(context);
             System.out.println("--- BaseTest Logic: Driver setup complete.");
-        } else {
-            System.out.println("--- BaseTest Logic: Driver already initialized.");
+        } catch (RuntimeException e) {
+            DevicePool.release(device);
+            throw e;
         }
     }
 
     public static void resetApplicationStateLogic() {
-        try {
-            String appIdentifierKey = "android".equals(platform) ? "appPackage" : "bundleId";
-            String appCommandParam = "android".equals(platform) ? "appId" : "bundleId";
+        resetApplicationStateLogic(ResetStrategy.getDefault());
+    }
 
-            String appIdentifier = TestProperties.getProperty(appIdentifierKey);
-            System.out.println("--- BaseTest Logic: appIdentifierKey: " + appIdentifierKey);
-            System.out.println("--- BaseTest Logic: appIdentifier: " + appIdentifier);
+    public static void resetApplicationStateLogic(ResetStrategy strategy) {
+        AppiumDriver driver = getDriver();
+        String platform = getPlatform();
+        String appIdentifierKey = "android".equals(platform) ? "appPackage" : "bundleId";
+        String appIdentifier = TestProperties.getProperty(appIdentifierKey);
+        System.out.println("--- BaseTest Logic: Resetting app state with strategy " + strategy + " (" + appIdentifierKey + ": " + appIdentifier + ")");
 
-            if (appIdentifier == null || appIdentifier.trim().isEmpty()) {
-                System.err.println("!!! Warning: App identifier property ('" + appIdentifierKey + "') is missing or empty. Cannot terminate/activate app by identifier.");
+        try {
+            if (strategy != ResetStrategy.SOFT && (appIdentifier == null || appIdentifier.trim().isEmpty())) {
+                System.err.println("!!! Warning: App identifier property ('" + appIdentifierKey + "') is missing or empty. Cannot reset app by identifier.");
+                ContextSwitcher.switchToWebView();
             } else {
-                System.out.println("--- BaseTest Logic: Terminating app: " + appIdentifier);
-                driver.executeScript("mobile: terminateApp", Map.of(appCommandParam, appIdentifier));
-
-                System.out.println("--- BaseTest Logic: Activating app: " + appIdentifier);
-                driver.executeScript("mobile: activateApp", Map.of(appCommandParam, appIdentifier));
+                long elapsedMs = strategy.apply(driver, platform, appIdentifier);
+                System.out.println("--- BaseTest Logic: " + strategy + " reset took " + elapsedMs + " ms");
             }
-
-            System.out.println("--- BaseTest Logic: Switching to WebView...");
-            ContextSwitcher.switchToWebView();
-            System.out.println("--- BaseTest Logic: Switched to WebView!");
-
         } catch (Exception e) {
-            System.err.println("Warning: Exception during application state reset (terminate/activate/switch context).");
-            e.printStackTrace();
+            System.err.println("Warning: " + strategy + " reset failed: " + e.getMessage());
+            if (strategy != ResetStrategy.RESTART && appIdentifier != null && !appIdentifier.trim().isEmpty()) {
+                // Cheaper strategies can fail on a half-loaded WebView; a restart always gets back to a known state
+                try {
+                    long elapsedMs = ResetStrategy.RESTART.apply(driver, platform, appIdentifier);
+                    System.out.println("--- BaseTest Logic: Fallback RESTART reset took " + elapsedMs + " ms");
+                } catch (Exception restartError) {
+                    System.err.println("Warning: Exception during application state reset (terminate/activate/switch context).");
+                    restartError.printStackTrace();
+                }
+            } else {
+                e.printStackTrace();
+            }
+        } finally {
+            // Every strategy reloads the page, so no element reference survives it
+            getSession().getWaits().forget();
         }
         System.out.println("--- BaseTest Logic: Application state reset finished.");
     }
 
     public static void quitDriverLogic() {
         System.out.println("--- BaseTest Logic: Tearing down driver ---");
-        if (driver != null) {
+        SessionContext current = session.get();
+        if (current != null) {
             System.out.println("--- BaseTest Logic: Quitting Appium Driver...");
             try {
-                driver.quit();
+                SessionPool.retire(current);
                 System.out.println("--- BaseTest Logic: Driver Quitted.");
-            } catch (Exception e) {
-                System.err.println("!!! Error quitting driver: " + e.getMessage());
             } finally {
-                driver = null;
-                wait = null;
-                contextSwitcher = null;
-                welcomePage = null;
-                schedulePage = null;
+                current.detach();
+                session.remove();
+                DevicePool.release(current.getDevice());
             }
         } else {
             System.out.println("--- BaseTest Logic: Driver was already null.");
         }
     }
 
+    public static void releaseDriverLogic(boolean scenarioFailed) {
+        SessionContext current = session.get();
+        if (current == null || !SessionPool.isEnabled()) {
+            quitDriverLogic();
+            return;
+        }
+        System.out.println("--- BaseTest Logic: Returning driver to the session pool ---");
+        current.detach();
+        session.remove();
+        SessionPool.release(current, scenarioFailed);
+        DevicePool.release(current.getDevice());
+    }
+
+    // Set by the runner daemon: servers and idle sessions outlive a single run
+    public static boolean isRetained() {
+        return Boolean.getBoolean("runner.retain");
+    }
+
+    public static void shutdownSessionPoolLogic() {
+        System.out.println("--- BaseTest Logic: Shutting down session pool ---");
+        SessionPool.shutdown();
+    }
+
     public static void stopServerLogic() {
         System.out.println("--- BaseTest Logic: Shutting down server ---");
-        if (server != null && server.isRunning()) {
-            System.out.println("--- BaseTest Logic: Stopping Appium Server...");
-            server.stop();
-            System.out.println("--- BaseTest Logic: Appium Server Stopped.");
+        if (AppiumServerFarm.isRunning()) {
+            System.out.println("--- BaseTest Logic: Stopping Appium Servers...");
+            AppiumServerFarm.stopAll();
+            System.out.println("--- BaseTest Logic: Appium Servers Stopped.");
         } else {
             System.out.println("--- BaseTest Logic: Server was null or not running.");
         }
+        RecordingProxy.stopAll();
+        if (replayServer != null) {
+            replayServer.stop();
+            replayServer = null;
+        }
     }
 }
@@ -0,0 +1,45 @@
+package base;
+
+import support.DeviceConfig;
+import support.TestProperties;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class DevicePool {
+
+    private static final LinkedBlockingQueue<DeviceConfig> free = new LinkedBlockingQueue<>();
+    private static List<DeviceConfig> devices;
+
+    private static synchronized void init() {
+        if (devices == null) {
+            devices = TestProperties.getDevices();
+            free.addAll(devices);
+            System.out.println("--- DevicePool: " + devices.size() + " device(s): " + devices);
+        }
+    }
+
+    public static List<DeviceConfig> getDevices() {
+        init();
+        return devices;
+    }
+
+    // Blocks until a device is free; whichever scenario thread asks next gets it
+    public static DeviceConfig acquire() {
+        init();
+        try {
+            DeviceConfig device = free.take();
+            System.out.println("--- DevicePool: Thread " + Thread.currentThread().threadId() + " got device " + device);
+            return device;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a free device", e);
+        }
+    }
+
+    public static void release(DeviceConfig device) {
+        if (device != null && !free.contains(device)) {
+            free.offer(device);
+        }
+    }
+}
@@ -0,0 +1,651 @@
+package base;
+
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import support.TestProperties;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Maps each scenario to the step definitions, page object methods and locators it goes through, read from the sources.
+// With -DimpactSince=<git revision> (and/or -DimpactLocators=<name,...>) only the scenarios touched by the change run.
+// A changed file the index can't attribute (support code, config, pom, Hooks) selects everything.
+public class ImpactIndex {
+
+    static final String FEATURES_DIR = "src/test/java/resources/features";
+    static final String STEPS_DIR = "src/test/java/stepdefinitions";
+    static final String SCREENS_DIR = "src/main/java/screens";
+    private static final String INDEX_FILE = "target/impact-index.txt";
+    private static final String EVERYTHING = "*";
+
+    private static final Pattern STEP_ANNOTATION = Pattern.compile("^@(?:io\\.cucumber\\.java\\.en\\.)?(Given|When|Then|And|But)\\s*\\(\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern PAGE_CALL = Pattern.compile("\\bget(\\w+)\\(\\)\\s*\\.\\s*(\\w+)\\s*\\(");
+    private static final Pattern CALL = Pattern.compile("\\b(\\w+)\\s*\\(");
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b[A-Za-z_$][\\w$]*\\b");
+    private static final Pattern LOCATOR_NAME = Pattern.compile("Locator\\.\\w+\\(\\s*\"([^\"]+)\"");
+    private static final Pattern SCENARIO = Pattern.compile("^\\s*(Scenario|Scenario Outline|Scenario Template|Example)\\s*:(.*)$");
+    private static final Pattern BLOCK = Pattern.compile("^\\s*(Feature|Rule|Background|Examples|Scenarios)\\s*:.*$");
+    private static final Pattern STEP = Pattern.compile("^\\s*(Given|When|Then|And|But|\\*)\\s+(.+)$");
+    private static final Pattern OUTLINE_PARAMETER = Pattern.compile("<([^>]+)>");
+    private static final Pattern HUNK = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+
+    private static class StepDefinition {
+        final Pattern pattern;
+        final String key;
+        final Set<String> impacts = new LinkedHashSet<>();
+
+        StepDefinition(Pattern pattern, String key) {
+            this.pattern = pattern;
+            this.key = key;
+        }
+    }
+
+    static class ScenarioEntry {
+        final String feature;
+        final String name;
+        final int line;
+        int endLine;
+        final Set<String> impacts = new TreeSet<>();
+
+        ScenarioEntry(String feature, String name, int line) {
+            this.feature = feature;
+            this.name = name;
+            this.line = line;
+        }
+    }
+
+    private final File root;
+    private final List<ScenarioEntry> scenarios = new ArrayList<>();
+    private final Map<String, SourceMembers> stepSources = new HashMap<>();
+    private final Map<String, SourceMembers> pageSources = new HashMap<>();
+
+    // Applied to the scenarios from RunCucumberTest; without impactSince or impactLocators every scenario runs
+    public static Object[][] filter(Object[][] scenarios) {
+        String since = TestProperties.getProperty("impactSince");
+        String locators = TestProperties.getProperty("impactLocators");
+        boolean bySince = since != null && !since.trim().isEmpty();
+        boolean byLocators = locators != null && !locators.trim().isEmpty();
+        if (!bySince && !byLocators) {
+            return scenarios;
+        }
+        try {
+            ImpactIndex index = build(new File("."));
+            index.write(new File(INDEX_FILE));
+            Set<String> changed = new LinkedHashSet<>();
+            if (byLocators) {
+                for (String locator : locators.split(",")) {
+                    changed.add(locator.trim());
+                }
+            }
+            if (bySince) {
+                changed.addAll(index.changedSince(since.trim()));
+            }
+            System.out.println("--- ImpactIndex: Changed: " + (changed.isEmpty() ? "nothing the scenarios use" : String.join(", ", changed)));
+            if (changed.contains(EVERYTHING)) {
+                System.out.println("--- ImpactIndex: Change outside steps, pages and features, running all " + scenarios.length + " scenario(s).");
+                return scenarios;
+            }
+            Set<String> selected = index.select(changed);
+            List<Object[]> impacted = new ArrayList<>();
+            for (Object[] row : scenarios) {
+                Pickle pickle = ((PickleWrapper) row[0]).getPickle();
+                if (selected.contains(ScenarioScheduler.key(pickle.getUri().toString(), pickle.getScenarioLine()))) {
+                    impacted.add(row);
+                }
+            }
+            System.out.println("--- ImpactIndex: Running " + impacted.size() + " of " + scenarios.length + " scenario(s) impacted by the change.");
+            return impacted.toArray(new Object[0][]);
+        } catch (Exception e) {
+            System.err.println("!!! ImpactIndex: Could not select impacted scenarios, running all: " + e.getMessage());
+            return scenarios;
+        }
+    }
+
+    private ImpactIndex(File root) {
+        this.root = root;
+    }
+
+    // Paths in the index, the diff and the keys are relative to root
+    static ImpactIndex build(File root) throws IOException {
+        ImpactIndex index = new ImpactIndex(root);
+        for (File file : javaFiles(new File(root, SCREENS_DIR))) {
+            SourceMembers source = new SourceMembers(file);
+            index.pageSources.put(source.className, source);
+        }
+        List<StepDefinition> definitions = new ArrayList<>();
+        for (File file : javaFiles(new File(root, STEPS_DIR))) {
+            SourceMembers source = new SourceMembers(file);
+            index.stepSources.put(source.className, source);
+            for (SourceMembers.Member member : source.members) {
+                for (String annotation : member.annotations) {
+                    Matcher step = STEP_ANNOTATION.matcher(annotation);
+                    if (member.method && step.find()) {
+                        StepDefinition definition = new StepDefinition(toPattern(step.group(2).replace("\\\"", "\"").replace("\\\\", "\\")),
+                                source.className + "#" + member.name);
+                        definition.impacts.add(definition.key);
+                        index.addPageImpacts(member.body, definition.impacts);
+                        definitions.add(definition);
+                    }
+                }
+            }
+        }
+        File featuresDir = new File(root, FEATURES_DIR);
+        for (File file : featureFiles(featuresDir)) {
+            index.addFeature(file, relative(root, file), definitions);
+        }
+        return index;
+    }
+
+    // Page methods called from a step body, followed through the page's own helper methods down to its locators
+    private void addPageImpacts(String body, Set<String> impacts) {
+        Matcher call = PAGE_CALL.matcher(body);
+        while (call.find()) {
+            SourceMembers page = pageSources.get(call.group(1));
+            if (page != null) {
+                addMemberImpacts(page, call.group(2), impacts);
+            }
+        }
+    }
+
+    private void addMemberImpacts(SourceMembers page, String memberName, Set<String> impacts) {
+        SourceMembers.Member member = page.find(memberName);
+        if (member == null || !impacts.add(page.className + "#" + memberName)) {
+            return;
+        }
+        if (!member.method) {
+            String locator = locatorName(page, member);
+            if (locator != null) {
+                impacts.add(locator);
+            }
+            return;
+        }
+        // The constructor sets up every page and its locators, so each page method depends on it
+        addMemberImpacts(page, page.className, impacts);
+        Matcher call = CALL.matcher(member.body);
+        while (call.find()) {
+            SourceMembers.Member callee = page.find(call.group(1));
+            if (callee != null && callee.method) {
+                addMemberImpacts(page, callee.name, impacts);
+            }
+        }
+        Matcher identifier = IDENTIFIER.matcher(member.body);
+        while (identifier.find()) {
+            SourceMembers.Member field = page.find(identifier.group());
+            if (field != null && !field.method) {
+                addMemberImpacts(page, field.name, impacts);
+            }
+        }
+    }
+
+    private static String locatorName(SourceMembers page, SourceMembers.Member field) {
+        if (!field.declaration.contains("Locator") && !field.declaration.contains("By")) {
+            return null;
+        }
+        Matcher name = LOCATOR_NAME.matcher(field.body);
+        return name.find() ? name.group(1) : page.className + "." + field.name;
+    }
+
+    private void addFeature(File file, String path, List<StepDefinition> definitions) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        List<String> background = new ArrayList<>();
+        ScenarioEntry current = null;
+        List<String> steps = new ArrayList<>();
+        boolean inBackground = false;
+        boolean inExamples = false;
+        List<String> exampleHeader = null;
+        Map<String, String> firstExample = null;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            Matcher scenario = SCENARIO.matcher(line);
+            Matcher block = BLOCK.matcher(line);
+            if (scenario.matches() || block.matches() && !block.group(1).equals("Examples") && !block.group(1).equals("Scenarios")) {
+                finishScenario(current, i, background, steps, firstExample, definitions);
+                current = null;
+                steps = new ArrayList<>();
+                exampleHeader = null;
+                firstExample = null;
+                inExamples = false;
+                inBackground = block.matches() && block.group(1).equals("Background");
+                if (block.matches() && !inBackground) {
+                    // A Feature or Rule starts over with no background
+                    background = new ArrayList<>();
+                }
+                if (scenario.matches()) {
+                    current = new ScenarioEntry(path, scenario.group(2).trim(), i + 1);
+                    scenarios.add(current);
+                }
+                continue;
+            }
+            if (block.matches()) {
+                inExamples = true;
+                continue;
+            }
+            if (inExamples && line.trim().startsWith("|")) {
+                List<String> cells = cells(line);
+                if (exampleHeader == null) {
+                    exampleHeader = cells;
+                } else if (firstExample == null) {
+                    firstExample = new HashMap<>();
+                    for (int c = 0; c < exampleHeader.size() && c < cells.size(); c++) {
+                        firstExample.put(exampleHeader.get(c), cells.get(c));
+                    }
+                }
+                continue;
+            }
+            Matcher step = STEP.matcher(line);
+            if (step.matches() && !inExamples) {
+                (inBackground ? background : steps).add(step.group(2).trim());
+            }
+        }
+        finishScenario(current, lines.size(), background, steps, firstExample, definitions);
+    }
+
+    private void finishScenario(ScenarioEntry scenario, int endLine, List<String> background, List<String> steps,
+                                Map<String, String> example, List<StepDefinition> definitions) {
+        if (scenario == null) {
+            return;
+        }
+        scenario.endLine = endLine;
+        List<String> all = new ArrayList<>(background);
+        all.addAll(steps);
+        for (String text : all) {
+            if (example != null) {
+                Matcher parameter = OUTLINE_PARAMETER.matcher(text);
+                StringBuilder filled = new StringBuilder();
+                while (parameter.find()) {
+                    parameter.appendReplacement(filled, Matcher.quoteReplacement(example.getOrDefault(parameter.group(1), parameter.group())));
+                }
+                parameter.appendTail(filled);
+                text = filled.toString();
+            }
+            StepDefinition match = null;
+            for (StepDefinition definition : definitions) {
+                if (definition.pattern.matcher(text).matches()) {
+                    match = definition;
+                    break;
+                }
+            }
+            if (match == null) {
+                // Can't tell what an undefined step would touch, so any change selects the scenario
+                scenario.impacts.add(EVERYTHING);
+            } else {
+                scenario.impacts.addAll(match.impacts);
+            }
+        }
+    }
+
+    // Cucumber expression (or a ^...$ regular expression) to a Pattern matching the step text.
+    // Alternatives (a/b) are whole words; optional text like "(my )" may hold spaces; a backslash escapes ( { / and itself.
+    static Pattern toPattern(String expression) {
+        if (expression.startsWith("^") || expression.endsWith("$")) {
+            return Pattern.compile(expression);
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String word : split(expression, ' ')) {
+            if (regex.length() > 0) {
+                regex.append(' ');
+            }
+            List<String> alternatives = split(word, '/');
+            if (alternatives.size() == 1) {
+                regex.append(textRegex(word));
+                continue;
+            }
+            List<String> options = new ArrayList<>();
+            for (String alternative : alternatives) {
+                options.add(textRegex(alternative));
+            }
+            regex.append("(?:").append(String.join("|", options)).append(')');
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    // Splits on the separator where it is neither escaped nor inside optional text
+    private static List<String> split(String text, char separator) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        boolean optional = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                part.append(c).append(text.charAt(++i));
+                continue;
+            }
+            if (c == '(') {
+                optional = true;
+            } else if (c == ')') {
+                optional = false;
+            }
+            if (c == separator && !optional) {
+                parts.add(part.toString());
+                part.setLength(0);
+            } else {
+                part.append(c);
+            }
+        }
+        parts.add(part.toString());
+        return parts;
+    }
+
+    private static String textRegex(String text) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int close = c == '(' ? text.indexOf(')', i) : c == '{' ? text.indexOf('}', i) : -1;
+            if (c == '\\' && i + 1 < text.length()) {
+                literal.append(text.charAt(++i));
+            } else if (close < 0) {
+                literal.append(c);
+            } else {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                String inner = text.substring(i + 1, close);
+                regex.append(c == '(' ? "(?:" + Pattern.quote(inner.replaceAll("\\\\(.)", "$1")) + ")?" : parameterRegex(inner));
+                i = close;
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.toString();
+    }
+
+    private static String parameterRegex(String type) {
+        switch (type) {
+            case "int":
+            case "long":
+            case "short":
+            case "byte":
+            case "biginteger":
+                return "-?\\d+";
+            case "float":
+            case "double":
+            case "bigdecimal":
+                return "-?\\d*[.,]?\\d+(?:[eE]-?\\d+)?";
+            case "word":
+                return "\\S+";
+            case "string":
+                return "(?:\"[^\"]*\"|'[^']*')";
+            default:
+                return ".*";
+        }
+    }
+
+    // Keys the changed lines since the revision (working tree included) map to
+    Set<String> changedSince(String revision) throws IOException, InterruptedException {
+        Set<String> changed = new LinkedHashSet<>();
+        Map<String, List<int[]>> hunks = diff(root, revision);
+        for (Map.Entry<String, List<int[]>> file : hunks.entrySet()) {
+            changed.addAll(changedKeys(file.getKey(), file.getValue()));
+        }
+        return changed;
+    }
+
+    Set<String> changedKeys(String path, List<int[]> hunks) throws IOException {
+        Set<String> keys = new LinkedHashSet<>();
+        File file = new File(root, path);
+        if (path.startsWith(FEATURES_DIR + "/") && path.endsWith(".feature")) {
+            for (int[] hunk : hunks) {
+                boolean inScenario = false;
+                for (ScenarioEntry scenario : scenarios) {
+                    if (scenario.feature.equals(path) && hunk[0] <= scenario.endLine && hunk[1] >= scenario.line) {
+                        keys.add("scenario:" + path + ":" + scenario.line);
+                        inScenario = true;
+                    }
+                }
+                if (!inScenario && !isCommentOnly(file, hunk)) {
+                    // Feature header or background
+                    keys.add("feature:" + path);
+                }
+            }
+            return keys;
+        }
+        SourceMembers source = null;
+        if (path.startsWith(STEPS_DIR + "/")) {
+            source = stepSources.get(file.getName().replace(".java", ""));
+        } else if (path.startsWith(SCREENS_DIR + "/")) {
+            source = pageSources.get(file.getName().replace(".java", ""));
+        }
+        if (source == null || !isIndexed(source.className)) {
+            if (isBuildInput(path)) {
+                keys.add(EVERYTHING);
+            }
+            return keys;
+        }
+        for (int[] hunk : hunks) {
+            boolean inMember = false;
+            for (SourceMembers.Member member : source.members) {
+                if (hunk[1] == Integer.MAX_VALUE || !member.covers(hunk[0], hunk[1])) {
+                    continue;
+                }
+                inMember = true;
+                keys.add(source.className + "#" + member.name);
+                String locator = member.method ? null : locatorName(source, member);
+                if (locator != null) {
+                    keys.add(locator);
+                }
+            }
+            if (!inMember && !isCommentOnly(file, hunk)) {
+                // Imports, class declaration or a removed member: anything using the class may be affected
+                keys.add(source.className + "#" + EVERYTHING);
+            }
+        }
+        return keys;
+    }
+
+    // Only classes a scenario reaches through its steps are attributed per member; helpers like WaitEngine affect all
+    private boolean isIndexed(String className) {
+        for (ScenarioEntry scenario : scenarios) {
+            for (String impact : scenario.impacts) {
+                if (impact.startsWith(className + "#")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBuildInput(String path) {
+        return path.endsWith(".java") || path.endsWith(".feature") || path.endsWith(".properties")
+                || path.endsWith(".xml") || path.endsWith(".json") || path.endsWith(".csv") || path.endsWith(".jsonl");
+    }
+
+    private static boolean isCommentOnly(File file, int[] hunk) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (int line = hunk[0]; line <= hunk[1] && line <= lines.size(); line++) {
+            String text = lines.get(line - 1).trim();
+            if (!text.isEmpty() && !text.startsWith("//") && !text.startsWith("/*") && !text.startsWith("*") && !text.startsWith("#")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, List<int[]>> diff(File root, String revision) throws IOException, InterruptedException {
+        Process git = new ProcessBuilder("git", "diff", "-U0", "--no-color", "--no-ext-diff", revision, "--")
+                .directory(root).redirectErrorStream(true).start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.add(line);
+            }
+        }
+        if (git.waitFor() != 0) {
+            throw new IOException("git diff " + revision + " failed: " + String.join(" ", output));
+        }
+        Map<String, List<int[]>> hunks = parseDiff(output);
+        // New files git doesn't track yet aren't in the diff
+        Process untracked = new ProcessBuilder("git", "ls-files", "--others", "--exclude-standard")
+                .directory(root).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(untracked.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                hunks.computeIfAbsent(line, key -> new ArrayList<>()).add(new int[]{1, Integer.MAX_VALUE});
+            }
+        }
+        untracked.waitFor();
+        return hunks;
+    }
+
+    // Changed line ranges in the current version of each file of a "git diff -U0"; a pure deletion is the line it happened at.
+    // ---/+++ only count as file names in a file's header, since a removed "-- x" line looks the same inside a hunk.
+    static Map<String, List<int[]>> parseDiff(List<String> lines) {
+        Map<String, List<int[]>> hunks = new LinkedHashMap<>();
+        String oldPath = null;
+        String path = null;
+        boolean header = false;
+        for (String line : lines) {
+            if (line.startsWith("diff --git ")) {
+                header = true;
+                int newName = line.lastIndexOf(" b/");
+                oldPath = null;
+                path = newName < 0 ? null : line.substring(newName + 3);
+                if (path != null) {
+                    hunks.computeIfAbsent(path, key -> new ArrayList<>());
+                }
+            } else if (header && line.startsWith("--- ")) {
+                oldPath = line.startsWith("--- a/") ? line.substring(6) : null;
+            } else if (header && line.startsWith("+++ ")) {
+                boolean deleted = !line.startsWith("+++ b/");
+                path = deleted ? oldPath : line.substring(6);
+                List<int[]> ranges = hunks.computeIfAbsent(path, key -> new ArrayList<>());
+                if (deleted) {
+                    // The whole file is gone, so nothing in it can be matched by line
+                    ranges.add(new int[]{0, Integer.MAX_VALUE});
+                }
+            } else if (path != null) {
+                Matcher hunk = HUNK.matcher(line);
+                if (hunk.find()) {
+                    header = false;
+                    int start = Integer.parseInt(hunk.group(1));
+                    int count = hunk.group(2) == null ? 1 : Integer.parseInt(hunk.group(2));
+                    hunks.get(path).add(count == 0 ? new int[]{start, start + 1} : new int[]{start, start + count - 1});
+                }
+            }
+        }
+        // Renames, mode changes and binary files come without hunks: the whole file counts as changed
+        for (List<int[]> ranges : hunks.values()) {
+            if (ranges.isEmpty()) {
+                ranges.add(new int[]{1, Integer.MAX_VALUE});
+            }
+        }
+        return hunks;
+    }
+
+    // Scenario keys (absolute feature path and line, as ScenarioScheduler keys them) hit by any of the changed keys
+    Set<String> select(Set<String> changed) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (ScenarioEntry scenario : scenarios) {
+            if (isImpacted(scenario, changed)) {
+                selected.add(ScenarioScheduler.key(new File(root, scenario.feature).getPath(), scenario.line));
+            }
+        }
+        return selected;
+    }
+
+    private static boolean isImpacted(ScenarioEntry scenario, Set<String> changed) {
+        if (changed.isEmpty()) {
+            return false;
+        }
+        if (scenario.impacts.contains(EVERYTHING)
+                || changed.contains("feature:" + scenario.feature)
+                || changed.contains("scenario:" + scenario.feature + ":" + scenario.line)) {
+            return true;
+        }
+        for (String impact : scenario.impacts) {
+            if (changed.contains(impact)) {
+                return true;
+            }
+            int hash = impact.indexOf('#');
+            if (hash > 0 && changed.contains(impact.substring(0, hash + 1) + EVERYTHING)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(File file) {
+        StringBuilder text = new StringBuilder();
+        for (ScenarioEntry scenario : scenarios) {
+            text.append(scenario.feature).append(':').append(scenario.line).append(' ').append(scenario.name).append('\n');
+            for (String impact : scenario.impacts) {
+                text.append("    ").append(impact).append('\n');
+            }
+        }
+        try {
+            file.getParentFile().mkdirs();
+            Files.writeString(file.toPath(), text, StandardCharsets.UTF_8);
+            System.out.println("--- ImpactIndex: Indexed " + scenarios.size() + " scenario(s), see " + file);
+        } catch (IOException e) {
+            System.err.println("!!! ImpactIndex: Could not write " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static List<String> cells(String row) {
+        String trimmed = row.trim();
+        List<String> cells = new ArrayList<>();
+        for (String cell : trimmed.substring(1, trimmed.endsWith("|") ? trimmed.length() - 1 : trimmed.length()).split("\\|", -1)) {
+            cells.add(cell.trim());
+        }
+        return cells;
+    }
+
+    private static List<File> javaFiles(File dir) {
+        List<File> files = new ArrayList<>();
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return files;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                files.addAll(javaFiles(child));
+            } else if (child.getName().endsWith(".java")) {
+                files.add(child);
+            }
+        }
+        return files;
+    }
+
+    private static List<File> featureFiles(File dir) {
+        List<File> files = new ArrayList<>();
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return files;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                files.addAll(featureFiles(child));
+            } else if (child.getName().endsWith(".feature")) {
+                files.add(child);
+            }
+        }
+        return files;
+    }
+
+    private static String relative(File root, File file) {
+        return root.getAbsoluteFile().toPath().normalize().relativize(file.getAbsoluteFile().toPath().normalize()).toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,308 @@
+package base;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Builds the index over a small project written to a temporary directory, so line numbers below are fixed
+public class ImpactIndexTest {
+
+    private static final String PAGE = ImpactIndex.SCREENS_DIR + "/LoginPage.java";
+    private static final String STEPS = ImpactIndex.STEPS_DIR + "/LoginSteps.java";
+    private static final String FEATURE = ImpactIndex.FEATURES_DIR + "/login.feature";
+
+    private static final String PAGE_SOURCE = """
+            package screens;
+
+            import io.appium.java_client.AppiumDriver;
+
+            public class LoginPage {
+
+                private WaitEngine waits;
+                private final Locator emailBy = Locator.css("LoginPage.email", "//input[@name='email']", "input[name='email']");
+                private final Locator submitBy = Locator.xpath("LoginPage.submit", "//ion-button[@type='submit']");
+
+                public LoginPage(AppiumDriver driver, WaitEngine waits) {
+                    this.waits = waits;
+                }
+
+                // Typing goes through the in-page wait
+                public void typeEmail(String email) {
+                    waits.visible("LoginPage.email", emailBy).sendKeys(email);
+                }
+
+                public void submit() {
+                    waits.click("LoginPage.submit", submitBy);
+                }
+            }
+            """;
+
+    private static final String STEPS_SOURCE = """
+            package stepdefinitions;
+
+            import io.cucumber.java.en.Given;
+            import io.cucumber.java.en.Then;
+            import io.cucumber.java.en.When;
+
+            public class LoginSteps extends BaseTest {
+
+                @Given("I am on the login screen")
+                public void on_login_screen() {
+                }
+
+                @When("I type {string} as (my )email")
+                public void type_email(String email) {
+                    getLoginPage().typeEmail(email);
+                }
+
+                @When("I tap/press submit")
+                public void submit() {
+                    getLoginPage().submit();
+                }
+
+                @Then("I see {int} error(s)")
+                public void errors(int count) {
+                }
+            }
+            """;
+
+    // Scenarios start on lines 7, 10 and 14
+    private static final String FEATURE_SOURCE = """
+            Feature: Login
+
+              Background:
+                Given I am on the login screen
+
+              # Typing only
+              Scenario: Type email
+                When I type "a@b.c" as my email
+
+              Scenario: Submit
+                When I press submit
+                Then I see 1 error
+
+              Scenario Outline: Type and count
+                When I type <email> as email
+                Then I see <count> errors
+
+                Examples:
+                  | email   | count |
+                  | "x@y.z" | 2     |
+            """;
+
+    private File root;
+    private ImpactIndex index;
+
+    @BeforeClass
+    public void buildIndex() throws IOException {
+        root = Files.createTempDirectory("impact-index").toFile();
+        write(PAGE, PAGE_SOURCE);
+        write(STEPS, STEPS_SOURCE);
+        write(FEATURE, FEATURE_SOURCE);
+        index = ImpactIndex.build(root);
+    }
+
+    private void write(String path, String text) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), text, StandardCharsets.UTF_8);
+        file.deleteOnExit();
+    }
+
+    private String scenario(int line) {
+        return ScenarioScheduler.key(new File(root, FEATURE).getPath(), line);
+    }
+
+    private Set<String> select(String... changed) {
+        return index.select(new LinkedHashSet<>(List.of(changed)));
+    }
+
+    private Set<String> changedKeys(String path, int from, int to) throws IOException {
+        return index.changedKeys(path, List.<int[]>of(new int[]{from, to}));
+    }
+
+    @Test
+    public void optionalTextMatchesWithAndWithoutIt() {
+        Pattern pattern = ImpactIndex.toPattern("I see {int} error(s)");
+        Assert.assertTrue(pattern.matcher("I see 1 error").matches());
+        Assert.assertTrue(pattern.matcher("I see 2 errors").matches());
+        Assert.assertFalse(pattern.matcher("I see 2 errorss").matches());
+    }
+
+    @Test
+    public void optionalTextMayHoldSpaces() {
+        Pattern pattern = ImpactIndex.toPattern("I type {string} as (my )email");
+        Assert.assertTrue(pattern.matcher("I type \"a\" as my email").matches());
+        Assert.assertTrue(pattern.matcher("I type \"a\" as email").matches());
+    }
+
+    @Test
+    public void alternativesMatchEitherWord() {
+        Pattern pattern = ImpactIndex.toPattern("I tap/press submit");
+        Assert.assertTrue(pattern.matcher("I tap submit").matches());
+        Assert.assertTrue(pattern.matcher("I press submit").matches());
+        Assert.assertFalse(pattern.matcher("I click submit").matches());
+        Assert.assertFalse(pattern.matcher("I tap/press submit").matches());
+    }
+
+    @Test
+    public void intParameterMatchesWholeNumbersOnly() {
+        Pattern pattern = ImpactIndex.toPattern("I swipe through {int} welcome slides");
+        Assert.assertTrue(pattern.matcher("I swipe through 2 welcome slides").matches());
+        Assert.assertTrue(pattern.matcher("I swipe through -1 welcome slides").matches());
+        Assert.assertFalse(pattern.matcher("I swipe through two welcome slides").matches());
+        Assert.assertFalse(pattern.matcher("I swipe through 1.5 welcome slides").matches());
+    }
+
+    @Test
+    public void stringParameterNeedsQuotes() {
+        Pattern pattern = ImpactIndex.toPattern("I type {string}");
+        Assert.assertTrue(pattern.matcher("I type \"two words\"").matches());
+        Assert.assertTrue(pattern.matcher("I type 'single'").matches());
+        Assert.assertFalse(pattern.matcher("I type bare").matches());
+    }
+
+    @Test
+    public void escapedCharactersAndRegexCharactersAreLiteral() {
+        Pattern pattern = ImpactIndex.toPattern("the total is \\(about\\) 1+1 a\\/b");
+        Assert.assertTrue(pattern.matcher("the total is (about) 1+1 a/b").matches());
+        Assert.assertFalse(pattern.matcher("the total is  11 a").matches());
+    }
+
+    @Test
+    public void regularExpressionsAreUsedAsTheyAre() {
+        Assert.assertTrue(ImpactIndex.toPattern("^I wait (\\d+) seconds?$").matcher("I wait 3 seconds").matches());
+    }
+
+    @Test
+    public void featureHeaderChangeKeysTheWholeFeature() throws IOException {
+        Assert.assertEquals(changedKeys(FEATURE, 1, 1), Set.of("feature:" + FEATURE));
+        Assert.assertEquals(select("feature:" + FEATURE), Set.of(scenario(7), scenario(10), scenario(14)));
+    }
+
+    @Test
+    public void backgroundChangeKeysTheWholeFeature() throws IOException {
+        Assert.assertEquals(changedKeys(FEATURE, 4, 4), Set.of("feature:" + FEATURE));
+    }
+
+    @Test
+    public void scenarioBodyChangeKeysOnlyThatScenario() throws IOException {
+        Set<String> keys = changedKeys(FEATURE, 11, 12);
+        Assert.assertEquals(keys, Set.of("scenario:" + FEATURE + ":10"));
+        Assert.assertEquals(index.select(keys), Set.of(scenario(10)));
+    }
+
+    @Test
+    public void examplesTableBelongsToItsOutline() throws IOException {
+        Assert.assertEquals(changedKeys(FEATURE, 20, 20), Set.of("scenario:" + FEATURE + ":14"));
+    }
+
+    @Test
+    public void commentOnlyHunksKeyNothing() throws IOException {
+        Assert.assertEquals(changedKeys(FEATURE, 6, 6), Set.of());
+        Assert.assertEquals(changedKeys(PAGE, 15, 15), Set.of());
+    }
+
+    @Test
+    public void methodChangeKeysTheMember() throws IOException {
+        Assert.assertEquals(changedKeys(PAGE, 21, 21), Set.of("LoginPage#submit"));
+        Assert.assertEquals(changedKeys(STEPS, 15, 15), Set.of("LoginSteps#type_email"));
+    }
+
+    @Test
+    public void locatorFieldChangeKeysTheFieldAndLocatorName() throws IOException {
+        Assert.assertEquals(changedKeys(PAGE, 9, 9), Set.of("LoginPage#submitBy", "LoginPage.submit"));
+    }
+
+    @Test
+    public void importChangeKeysTheWholeClass() throws IOException {
+        Assert.assertEquals(changedKeys(PAGE, 3, 3), Set.of("LoginPage#*"));
+        Assert.assertEquals(select("LoginPage#*"), Set.of(scenario(7), scenario(10), scenario(14)));
+    }
+
+    @Test
+    public void fileOutsideStepsPagesAndFeaturesKeysEverything() throws IOException {
+        Assert.assertEquals(changedKeys("src/main/java/support/TestProperties.java", 10, 12), Set.of("*"));
+        Assert.assertEquals(changedKeys("README.md", 1, 1), Set.of());
+    }
+
+    @Test
+    public void deletedFileKeysEverything() throws IOException {
+        Map<String, List<int[]>> hunks = ImpactIndex.parseDiff(List.of(
+                "diff --git a/src/main/java/screens/OldPage.java b/src/main/java/screens/OldPage.java",
+                "deleted file mode 100644",
+                "index 1234567..0000000",
+                "--- a/src/main/java/screens/OldPage.java",
+                "+++ /dev/null",
+                "@@ -1,20 +0,0 @@",
+                "-package screens;"));
+        List<int[]> ranges = hunks.get("src/main/java/screens/OldPage.java");
+        Assert.assertEquals(ranges.get(0)[1], Integer.MAX_VALUE);
+        Assert.assertEquals(index.changedKeys("src/main/java/screens/OldPage.java", ranges), Set.of("*"));
+    }
+
+    @Test
+    public void diffHunksAreLineRangesOfTheNewFile() {
+        Map<String, List<int[]>> hunks = ImpactIndex.parseDiff(List.of(
+                "diff --git a/" + PAGE + " b/" + PAGE,
+                "index 1234567..89abcde 100644",
+                "--- a/" + PAGE,
+                "+++ b/" + PAGE,
+                "@@ -9 +9 @@ public class LoginPage {",
+                "-    old",
+                "+    new",
+                "@@ -20,0 +21,3 @@",
+                "+a",
+                "+b",
+                "+c",
+                "@@ -30,2 +33,0 @@",
+                "--- removed line that looks like a file header",
+                "-+++ and another one"));
+        Assert.assertEquals(hunks.keySet(), Set.of(PAGE));
+        List<int[]> ranges = hunks.get(PAGE);
+        Assert.assertEquals(ranges.size(), 3);
+        Assert.assertEquals(ranges.get(0), new int[]{9, 9});
+        Assert.assertEquals(ranges.get(1), new int[]{21, 23});
+        // A pure deletion is the line it happened at
+        Assert.assertEquals(ranges.get(2), new int[]{33, 34});
+    }
+
+    @Test
+    public void renameWithoutHunksCountsAsWholeFile() {
+        Map<String, List<int[]>> hunks = ImpactIndex.parseDiff(List.of(
+                "diff --git a/src/main/java/screens/Old.java b/src/main/java/screens/New.java",
+                "similarity index 100%",
+                "rename from src/main/java/screens/Old.java",
+                "rename to src/main/java/screens/New.java"));
+        Assert.assertEquals(hunks.get("src/main/java/screens/New.java").get(0), new int[]{1, Integer.MAX_VALUE});
+    }
+
+    @Test
+    public void locatorChangeSelectsOnlyScenariosReachingIt() {
+        Assert.assertEquals(select("LoginPage.submit"), Set.of(scenario(10)));
+        Assert.assertEquals(select("LoginPage.email"), Set.of(scenario(7), scenario(14)));
+    }
+
+    @Test
+    public void stepChangeSelectsScenariosUsingIt() {
+        Assert.assertEquals(select("LoginSteps#errors"), Set.of(scenario(10), scenario(14)));
+        // Background steps run in front of every scenario
+        Assert.assertEquals(select("LoginSteps#on_login_screen"), Set.of(scenario(7), scenario(10), scenario(14)));
+    }
+
+    @Test
+    public void nothingChangedSelectsNothing() {
+        Assert.assertEquals(select(), Set.of());
+        Assert.assertEquals(select("LoginPage#unrelated"), Set.of());
+    }
+}
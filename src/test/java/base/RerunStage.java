@@ -0,0 +1,177 @@
+package base;
+
+import org.openqa.selenium.json.Json;
+import support.TestProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Second pass over the failed scenarios in the same JVM, on the Appium server and device pool the main pass left running.
+// The main pass writes target/rerun.txt; RerunFailedTest runs it and its results replace the failed ones in cucumber.json.
+public class RerunStage {
+
+    public static final String RERUN_FILE = "target/rerun.txt";
+    public static final String MAIN_JSON = "target/cucumber.json";
+    public static final String RERUN_JSON = "target/cucumber-rerun.json";
+
+    private static final Json JSON = new Json();
+    private static final AtomicInteger failures = new AtomicInteger();
+    private static volatile boolean rerunning;
+    private static volatile boolean scheduled;
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(TestProperties.getProperty("rerunFailed", "true"));
+    }
+
+    public static void recordFailure() {
+        if (!rerunning) {
+            failures.incrementAndGet();
+        }
+    }
+
+    // Called by the rerun stage when TestNG sets up the suite, before the main pass runs.
+    // Without it (e.g. -Dtest=RunCucumberTest) nothing would run after the main pass to release the server and sessions.
+    public static void schedule() {
+        scheduled = true;
+    }
+
+    // True at the end of a main pass whose failures are about to be rerun, so the server and sessions stay up
+    public static boolean isPending() {
+        return scheduled && isEnabled() && !rerunning && failures.get() > 0;
+    }
+
+    public static boolean isRerunning() {
+        return rerunning;
+    }
+
+    // Lines left in the rerun file by the main pass, one feature path with its scenario lines each
+    public static List<String> failedScenarios() {
+        List<String> entries = new ArrayList<>();
+        File file = new File(RERUN_FILE);
+        if (!file.isFile()) {
+            return entries;
+        }
+        try {
+            for (String entry : Files.readString(file.toPath(), StandardCharsets.UTF_8).split("\\s+")) {
+                if (!entry.isEmpty()) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("!!! RerunStage: Could not read " + file + ": " + e.getMessage());
+        }
+        return entries;
+    }
+
+    public static void begin(List<String> entries) {
+        rerunning = true;
+        System.out.println("--- RerunStage: Rerunning " + failures.get() + " failed scenario(s): " + String.join(" ", entries));
+    }
+
+    // Swaps each rerun scenario (and the background run in front of it) into the main report, in place
+    public static void mergeReports() {
+        File main = new File(MAIN_JSON);
+        File rerun = new File(RERUN_JSON);
+        if (!main.isFile() || !rerun.isFile()) {
+            System.err.println("!!! RerunStage: Nothing to merge, missing " + (main.isFile() ? rerun : main));
+            return;
+        }
+        try {
+            List<Map<String, Object>> mainFeatures = read(main);
+            int replaced = 0;
+            int passed = 0;
+            for (Map<String, Object> rerunFeature : read(rerun)) {
+                Map<String, Object> mainFeature = mainFeatures.stream()
+                        .filter(feature -> Objects.equals(feature.get("uri"), rerunFeature.get("uri")))
+                        .findFirst().orElse(null);
+                if (mainFeature == null) {
+                    continue;
+                }
+                List<Object> mainElements = elements(mainFeature);
+                List<Object> rerunElements = elements(rerunFeature);
+                for (int i = 0; i < rerunElements.size(); i++) {
+                    Map<?, ?> scenario = (Map<?, ?>) rerunElements.get(i);
+                    if (!"scenario".equals(scenario.get("type"))) {
+                        continue;
+                    }
+                    int index = indexOf(mainElements, scenario);
+                    if (index < 0) {
+                        continue;
+                    }
+                    mainElements.set(index, scenario);
+                    if (i > 0 && index > 0 && isBackground(rerunElements.get(i - 1)) && isBackground(mainElements.get(index - 1))) {
+                        mainElements.set(index - 1, rerunElements.get(i - 1));
+                    }
+                    replaced++;
+                    if (hasPassed(scenario)) {
+                        passed++;
+                        System.out.println("--- RerunStage: Passed on rerun: " + scenario.get("name"));
+                    } else {
+                        System.out.println("--- RerunStage: Failed again: " + scenario.get("name"));
+                    }
+                }
+                mainFeature.put("elements", mainElements);
+            }
+            Files.writeString(main.toPath(), JSON.toJson(mainFeatures), StandardCharsets.UTF_8);
+            System.out.println("--- RerunStage: Merged " + replaced + " rerun scenario(s) into " + main + ", " + passed + " passed on rerun");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("!!! RerunStage: Could not merge " + rerun + " into " + main + ": " + e.getMessage());
+        }
+    }
+
+    private static List<Map<String, Object>> read(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            List<Map<String, Object>> features = new ArrayList<>();
+            for (Map<String, Object> feature : JSON.<List<Map<String, Object>>>toType(reader, Json.LIST_OF_MAPS_TYPE)) {
+                features.add(new LinkedHashMap<>(feature));
+            }
+            return features;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> elements(Map<String, Object> feature) {
+        Object elements = feature.get("elements");
+        return elements instanceof List ? new ArrayList<>((List<Object>) elements) : new ArrayList<>();
+    }
+
+    private static int indexOf(List<Object> elements, Map<?, ?> scenario) {
+        for (int i = 0; i < elements.size(); i++) {
+            Map<?, ?> element = (Map<?, ?>) elements.get(i);
+            if (Objects.equals(element.get("id"), scenario.get("id")) && Objects.equals(element.get("line"), scenario.get("line"))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBackground(Object element) {
+        return element instanceof Map && "background".equals(((Map<?, ?>) element).get("type"));
+    }
+
+    private static boolean hasPassed(Map<?, ?> scenario) {
+        for (String key : new String[]{"before", "steps", "after"}) {
+            Object results = scenario.get(key);
+            if (!(results instanceof List)) {
+                continue;
+            }
+            for (Object step : (List<?>) results) {
+                Object result = step instanceof Map ? ((Map<?, ?>) step).get("result") : null;
+                if (result instanceof Map && !"passed".equals(((Map<?, ?>) result).get("status"))
+                        && !"skipped".equals(((Map<?, ?>) result).get("status"))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
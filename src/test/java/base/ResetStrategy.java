@@ -0,0 +1,194 @@
+package base;
+
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.WebDriverException;
+import support.ContextSwitcher;
+import support.LatencyHistogram;
+import support.TestProperties;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Ways to bring the app back to its start state, cheapest first.
+// A scenario picks one with a @reset:<name> tag; otherwise the resetStrategy property applies.
+public enum ResetStrategy {
+
+    // Clears web storage and reloads the start route inside the running WebView, no process restart.
+    // Done only once the new document has loaded, so the next lookups can't hit the old page.
+    SOFT {
+        @Override
+        void reset(AppiumDriver driver, String platform, String appId) {
+            ContextSwitcher.switchToWebView();
+            Object result = driver.executeAsyncScript(SOFT_RESET_SCRIPT, TestProperties.getProperty("resetRoute", ""));
+            if (!(result instanceof Map) || !Boolean.TRUE.equals(((Map<?, ?>) result).get("ok"))) {
+                throw new IllegalStateException("Soft reset failed: " + result);
+            }
+            awaitReload(driver, String.valueOf(((Map<?, ?>) result).get("route")));
+        }
+    },
+
+    // Opens the start screen through the app's URL scheme, keeping the process and its WebView
+    DEEP_LINK {
+        @Override
+        void reset(AppiumDriver driver, String platform, String appId) {
+            String url = TestProperties.getProperty("resetDeepLink");
+            if (url == null || url.trim().isEmpty()) {
+                throw new IllegalStateException("resetDeepLink property is required for the deep_link reset strategy");
+            }
+            driver.executeScript("mobile: deepLink", Map.of("url", url, "android".equals(platform) ? "package" : "bundleId", appId));
+        }
+    },
+
+    RESTART {
+        @Override
+        void reset(AppiumDriver driver, String platform, String appId) {
+            String appCommandParam = "android".equals(platform) ? "appId" : "bundleId";
+            System.out.println("--- ResetStrategy: Terminating app: " + appId);
+            driver.executeScript("mobile: terminateApp", Map.of(appCommandParam, appId));
+            System.out.println("--- ResetStrategy: Activating app: " + appId);
+            driver.executeScript("mobile: activateApp", Map.of(appCommandParam, appId));
+            ContextSwitcher.appRestarted();
+        }
+    },
+
+    // Wipes the app's data as well, for scenarios that need a first-launch state
+    CLEAR_DATA {
+        @Override
+        void reset(AppiumDriver driver, String platform, String appId) {
+            String appCommandParam = "android".equals(platform) ? "appId" : "bundleId";
+            System.out.println("--- ResetStrategy: Clearing app data: " + appId);
+            driver.executeScript("mobile: clearApp", Map.of(appCommandParam, appId));
+            driver.executeScript("mobile: activateApp", Map.of(appCommandParam, appId));
+            ContextSwitcher.appRestarted();
+        }
+    };
+
+    private static final String TAG_PREFIX = "@reset:";
+
+    // An empty route means the app's start URL: the page itself for file:// (Cordova), scheme, host and <base> path otherwise.
+    // The old document is marked, so the wait can tell it from the reloaded one.
+    private static final String SOFT_RESET_SCRIPT =
+            "var route = arguments[0], done = arguments[arguments.length - 1];" +
+            "try {" +
+            "  if (!route) {" +
+            "    if (location.protocol === 'file:') {" +
+            "      route = location.href.split('#')[0].split('?')[0];" +
+            "    } else {" +
+            "      var base = document.querySelector('base');" +
+            "      var root = location.protocol + '//' + location.host;" +
+            "      route = root + new URL(base ? base.getAttribute('href') : '/', root + '/').pathname;" +
+            "    }" +
+            "  }" +
+            "  route = new URL(route, location.href).href;" +
+            "} catch (e) { done({ok: false, error: String(e)}); return; }" +
+            "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}" +
+            "var listing = window.indexedDB && indexedDB.databases ? indexedDB.databases() : Promise.resolve([]);" +
+            "listing.then(function (dbs) {" +
+            "  return Promise.all(dbs.map(function (db) {" +
+            "    return new Promise(function (resolve) {" +
+            "      var request = indexedDB.deleteDatabase(db.name);" +
+            "      request.onsuccess = request.onerror = request.onblocked = function () { resolve(); };" +
+            "    });" +
+            "  }));" +
+            "}).then(function () {" +
+            "  window.__resetPending = true;" +
+            "  done({ok: true, route: route});" +
+            "  setTimeout(function () {" +
+            // A route that only differs by its hash would be a same-document navigation, which doesn't reload
+            "    if (route.split('#')[0] === location.href.split('#')[0]) {" +
+            "      history.replaceState(null, '', route);" +
+            "      location.reload();" +
+            "    } else {" +
+            "      location.replace(route);" +
+            "    }" +
+            "  }, 0);" +
+            "}, function (e) { done({ok: false, error: String(e)}); });";
+
+    private static final String RELOADED_SCRIPT =
+            "return !window.__resetPending && document.readyState === 'complete' ? location.href : null;";
+
+    private static final long RELOAD_POLL_MS = 100;
+
+    private static final Map<ResetStrategy, LatencyHistogram> timings = new EnumMap<>(ResetStrategy.class);
+
+    static {
+        resetTimings();
+    }
+
+    abstract void reset(AppiumDriver driver, String platform, String appId);
+
+    // Polls until the marked document is replaced by a fully loaded one at the route; scripts may fail mid-navigation
+    private static void awaitReload(AppiumDriver driver, String route) {
+        long deadline = System.currentTimeMillis() + Long.parseLong(TestProperties.getProperty("resetTimeoutSeconds", "20")) * 1000;
+        String base = route.split("#")[0];
+        String lastSeen = null;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Object href = driver.executeScript(RELOADED_SCRIPT);
+                if (href instanceof String) {
+                    lastSeen = (String) href;
+                    if (lastSeen.startsWith(base)) {
+                        return;
+                    }
+                }
+            } catch (WebDriverException e) {
+                // The document is being replaced
+            }
+            try {
+                Thread.sleep(RELOAD_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the soft reset reload", e);
+            }
+        }
+        throw new IllegalStateException("Soft reset did not reload " + route + " in time, last loaded: " + lastSeen);
+    }
+
+    // Runs the reset and records how long it took, including the reload and waiting for the WebView again
+    public long apply(AppiumDriver driver, String platform, String appId) {
+        long start = System.nanoTime();
+        reset(driver, platform, appId);
+        ContextSwitcher.switchToWebView();
+        long elapsed = System.nanoTime() - start;
+        timings.get(this).recordNanos(elapsed);
+        return elapsed / 1_000_000;
+    }
+
+    public static ResetStrategy fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown reset strategy '" + name + "', expected one of "
+                    + Arrays.stream(values()).map(strategy -> strategy.name().toLowerCase()).toList(), e);
+        }
+    }
+
+    public static ResetStrategy getDefault() {
+        return fromName(TestProperties.getProperty("resetStrategy", "restart"));
+    }
+
+    public static ResetStrategy forTags(Collection<String> tags) {
+        for (String tag : tags) {
+            if (tag.toLowerCase().startsWith(TAG_PREFIX)) {
+                try {
+                    return fromName(tag.substring(TAG_PREFIX.length()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Bad reset tag " + tag + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return getDefault();
+    }
+
+    public static Map<ResetStrategy, LatencyHistogram> getTimings() {
+        return timings;
+    }
+
+    public static void resetTimings() {
+        for (ResetStrategy strategy : values()) {
+            timings.put(strategy, new LatencyHistogram());
+        }
+    }
+}
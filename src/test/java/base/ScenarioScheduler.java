@@ -0,0 +1,93 @@
+package base;
+
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import org.openqa.selenium.json.Json;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ScenarioScheduler {
+
+    private static final String HISTORY = "target/cucumber.json";
+
+    // Longest scenarios go first so the last ones handed to a free device are the short ones.
+    // Scenarios without history are treated as longest: they could be anything.
+    public static Object[][] orderLongestFirst(Object[][] scenarios) {
+        Map<String, Long> durations = loadDurations(new File(HISTORY));
+        if (durations.isEmpty()) {
+            System.out.println("--- ScenarioScheduler: No previous durations in " + HISTORY + ", keeping feature order.");
+            return scenarios;
+        }
+        Object[][] ordered = scenarios.clone();
+        Arrays.sort(ordered, Comparator.comparingLong((Object[] row) -> durationOf(row, durations)).reversed());
+        System.out.println("--- ScenarioScheduler: Ordered " + ordered.length + " scenario(s) longest-first using " + durations.size() + " recorded duration(s).");
+        return ordered;
+    }
+
+    private static long durationOf(Object[] row, Map<String, Long> durations) {
+        Pickle pickle = ((PickleWrapper) row[0]).getPickle();
+        return durations.getOrDefault(key(pickle.getUri().toString(), pickle.getLine()), Long.MAX_VALUE);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Long> loadDurations(File report) {
+        Map<String, Long> durations = new HashMap<>();
+        if (!report.isFile()) {
+            return durations;
+        }
+        try (Reader reader = new FileReader(report)) {
+            List<Map<String, Object>> features = new Json().toType(reader, Json.LIST_OF_MAPS_TYPE);
+            for (Map<String, Object> feature : features) {
+                String uri = (String) feature.get("uri");
+                List<Map<String, Object>> elements = (List<Map<String, Object>>) feature.get("elements");
+                if (uri == null || elements == null) {
+                    continue;
+                }
+                for (Map<String, Object> element : elements) {
+                    if (!"scenario".equals(element.get("type"))) {
+                        continue;
+                    }
+                    long nanos = 0;
+                    for (String section : List.of("before", "steps", "after")) {
+                        nanos += sumDurations((List<Map<String, Object>>) element.get(section));
+                    }
+                    durations.merge(key(uri, ((Number) element.get("line")).intValue()), nanos, Math::max);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("!!! ScenarioScheduler: Could not read durations from " + report + ": " + e.getMessage());
+        }
+        return durations;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long sumDurations(List<Map<String, Object>> entries) {
+        long nanos = 0;
+        if (entries == null) {
+            return nanos;
+        }
+        for (Map<String, Object> entry : entries) {
+            Map<String, Object> result = (Map<String, Object>) entry.get("result");
+            if (result != null && result.get("duration") instanceof Number) {
+                nanos += ((Number) result.get("duration")).longValue();
+            }
+        }
+        return nanos;
+    }
+
+    // cucumber.json holds relative "file:src/..." URIs while pickles carry absolute ones
+    static String key(String uri, int line) {
+        Path path = uri.startsWith("file:/") ? Paths.get(URI.create(uri)) : Paths.get(uri.replaceFirst("^file:", ""));
+        return path.toAbsolutePath().normalize() + ":" + line;
+    }
+}
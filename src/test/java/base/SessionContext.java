@@ -0,0 +1,93 @@
+package base;
+
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import screens.SchedulePage;
+import screens.WaitEngine;
+import screens.WelcomePage;
+import support.ContextSwitcher;
+import support.DeviceConfig;
+import support.DriverMethods;
+
+import java.time.Duration;
+
+public class SessionContext {
+
+    private final AppiumDriver driver;
+    private final String platform;
+    private final DeviceConfig device;
+    private final AppiumServerFarm.ServerLease lease;
+    private final WebDriverWait wait;
+    private final WaitEngine waits;
+    private final ContextSwitcher contextSwitcher;
+    private final WelcomePage welcomePage;
+    private final SchedulePage schedulePage;
+    private int uses;
+
+    public SessionContext(AppiumDriver driver, String platform, DeviceConfig device, AppiumServerFarm.ServerLease lease) {
+        this.driver = driver;
+        this.platform = platform;
+        this.device = device;
+        this.lease = lease;
+        this.wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+        this.waits = new WaitEngine(driver, Duration.ofSeconds(15));
+        this.contextSwitcher = new ContextSwitcher(driver, wait);
+        this.welcomePage = new WelcomePage(driver, waits);
+        this.schedulePage = new SchedulePage(driver, waits);
+    }
+
+    // Binds the session to the calling thread so the static helpers in support act on it
+    public void attach() {
+        DriverMethods.setDriver(driver);
+        ContextSwitcher.bind(contextSwitcher);
+    }
+
+    public void detach() {
+        DriverMethods.setDriver(null);
+        ContextSwitcher.bind(null);
+    }
+
+    public int markUsed() {
+        return ++uses;
+    }
+
+    public int getUses() {
+        return uses;
+    }
+
+    public AppiumDriver getDriver() {
+        return driver;
+    }
+
+    public DeviceConfig getDevice() {
+        return device;
+    }
+
+    public AppiumServerFarm.ServerLease getLease() {
+        return lease;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public WebDriverWait getWait() {
+        return wait;
+    }
+
+    public WaitEngine getWaits() {
+        return waits;
+    }
+
+    public ContextSwitcher getContextSwitcher() {
+        return contextSwitcher;
+    }
+
+    public WelcomePage getWelcomePage() {
+        return welcomePage;
+    }
+
+    public SchedulePage getSchedulePage() {
+        return schedulePage;
+    }
+}
@@ -0,0 +1,106 @@
+package base;
+
+import io.appium.java_client.remote.SupportsContextSwitching;
+import reports.ScreenRecorder;
+import support.DeviceConfig;
+import support.TestProperties;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SessionPool {
+
+    // Idle sessions per device name: a session can only be lent to whoever holds its device
+    private static final Map<String, ConcurrentLinkedDeque<SessionContext>> idle = new ConcurrentHashMap<>();
+    private static final Set<SessionContext> open = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger created = new AtomicInteger();
+    private static final AtomicInteger reused = new AtomicInteger();
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(TestProperties.getProperty("sessionReuse", "true"));
+    }
+
+    private static int maxUses() {
+        return Integer.parseInt(TestProperties.getProperty("sessionMaxUses", "20"));
+    }
+
+    public static void register(SessionContext context) {
+        open.add(context);
+        created.incrementAndGet();
+    }
+
+    // Lends out the device's most recently returned healthy session, or null when a new one must be created
+    public static SessionContext acquire(DeviceConfig device) {
+        ConcurrentLinkedDeque<SessionContext> sessions = idleOn(device);
+        SessionContext context;
+        while ((context = sessions.pollFirst()) != null) {
+            if (isHealthy(context)) {
+                reused.incrementAndGet();
+                System.out.println("--- SessionPool: Reusing session " + context.getDriver().getSessionId()
+                        + " (use " + (context.getUses() + 1) + " of " + maxUses() + ")");
+                return context;
+            }
+            System.out.println("--- SessionPool: Dropping unhealthy session " + context.getDriver().getSessionId());
+            retire(context);
+        }
+        return null;
+    }
+
+    public static void release(SessionContext context, boolean failed) {
+        int uses = context.markUsed();
+        if (failed) {
+            System.out.println("--- SessionPool: Retiring session " + context.getDriver().getSessionId() + " after a failed scenario.");
+            retire(context);
+        } else if (uses >= maxUses()) {
+            System.out.println("--- SessionPool: Retiring session " + context.getDriver().getSessionId() + " after " + uses + " uses.");
+            retire(context);
+        } else {
+            idleOn(context.getDevice()).addFirst(context);
+        }
+    }
+
+    private static ConcurrentLinkedDeque<SessionContext> idleOn(DeviceConfig device) {
+        return idle.computeIfAbsent(device.getName(), name -> new ConcurrentLinkedDeque<>());
+    }
+
+    public static void retire(SessionContext context) {
+        idleOn(context.getDevice()).remove(context);
+        if (!open.remove(context)) {
+            return;
+        }
+        try {
+            ScreenRecorder.sessionClosing(context.getDriver());
+            context.getDriver().quit();
+        } catch (Exception e) {
+            System.err.println("!!! SessionPool: Error quitting session: " + e.getMessage());
+        } finally {
+            if (context.getLease() != null) {
+                context.getLease().release();
+            }
+        }
+    }
+
+    public static void shutdown() {
+        System.out.println("--- SessionPool: Closing " + open.size() + " session(s). Created: " + created.get() + ", reused: " + reused.get());
+        for (SessionContext context : open.toArray(new SessionContext[0])) {
+            retire(context);
+        }
+        idle.clear();
+    }
+
+    private static boolean isHealthy(SessionContext context) {
+        if (context.getDriver().getSessionId() == null) {
+            return false;
+        }
+        try {
+            // Cheapest round trip that fails fast on a dead or timed-out session
+            ((SupportsContextSwitching) context.getDriver()).getContext();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package base;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+// The top-level members of a Java source file with their line spans, enough to map a changed line to a method or field.
+// Strings, char literals and comments are skipped, so braces in XPath or step text don't throw off the nesting.
+class SourceMembers {
+
+    static class Member {
+        final String name;
+        final boolean method;
+        final List<String> annotations;
+        final String declaration;
+        final String body;
+        final int startLine;
+        final int endLine;
+
+        Member(String name, boolean method, List<String> annotations, String declaration, String body, int startLine, int endLine) {
+            this.name = name;
+            this.method = method;
+            this.annotations = annotations;
+            this.declaration = declaration;
+            this.body = body;
+            this.startLine = startLine;
+            this.endLine = endLine;
+        }
+
+        boolean covers(int from, int to) {
+            return from <= endLine && to >= startLine;
+        }
+    }
+
+    final String className;
+    final List<Member> members = new ArrayList<>();
+
+    SourceMembers(File file) throws IOException {
+        String name = file.getName();
+        className = name.endsWith(".java") ? name.substring(0, name.length() - 5) : name;
+        parse(Files.readString(file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    Member find(String name) {
+        for (Member member : members) {
+            if (member.name.equals(name)) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    private void parse(String source) {
+        int depth = 0;
+        int line = 1;
+        int start = -1;
+        int startLine = 0;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                line++;
+                continue;
+            }
+            if (c == '/' && i + 1 < source.length() && source.charAt(i + 1) == '/') {
+                int end = source.indexOf('\n', i);
+                i = (end < 0 ? source.length() : end) - 1;
+                continue;
+            }
+            if (c == '/' && i + 1 < source.length() && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                end = end < 0 ? source.length() : end + 2;
+                line += count(source, i, end, '\n');
+                i = end - 1;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                int end = skipLiteral(source, i);
+                line += count(source, i, end, '\n');
+                if (start < 0 && depth == 1) {
+                    start = i;
+                    startLine = line;
+                }
+                i = end - 1;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (depth == 1 && start < 0 && c != '}' && c != ';') {
+                start = i;
+                startLine = line;
+            }
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+                if (depth == 1 && start >= 0 && isBlockMember(source.substring(start, i + 1))) {
+                    add(source.substring(start, i + 1), startLine, line);
+                    start = -1;
+                }
+            } else if (c == ';' && depth == 1 && start >= 0) {
+                add(source.substring(start, i + 1), startLine, line);
+                start = -1;
+            }
+        }
+    }
+
+    // A field initializer can hold a lambda or array block; only a method, constructor or nested type ends at its brace
+    private static boolean isBlockMember(String text) {
+        String head = stripAnnotations(text, null);
+        int brace = head.indexOf('{');
+        int equals = head.indexOf('=');
+        return equals < 0 || brace < equals;
+    }
+
+    private void add(String text, int startLine, int endLine) {
+        List<String> annotations = new ArrayList<>();
+        String declaration = stripAnnotations(text, annotations);
+        int brace = declaration.indexOf('{');
+        int paren = declaration.indexOf('(');
+        int equals = declaration.indexOf('=');
+        String head;
+        boolean method = paren >= 0 && (equals < 0 || paren < equals) && (brace < 0 || paren < brace);
+        if (method) {
+            head = declaration.substring(0, paren);
+        } else if (equals >= 0 && (brace < 0 || equals < brace)) {
+            head = declaration.substring(0, equals);
+        } else if (brace >= 0) {
+            // Nested class, interface or enum: named after the word following the keyword
+            head = declaration.substring(0, brace).replaceAll("\\s+(extends|implements)\\s.*$", "").replaceAll("<.*$", "");
+        } else {
+            head = declaration.replaceAll(";\\s*$", "");
+        }
+        String[] words = head.trim().split("\\s+");
+        String name = words[words.length - 1].replaceAll("[^\\w$]", "");
+        String body = brace >= 0 ? declaration.substring(brace) : equals >= 0 ? declaration.substring(equals + 1) : "";
+        members.add(new Member(name, method, annotations, declaration.substring(0, method ? paren : head.length()), body, startLine, endLine));
+    }
+
+    // Leading annotations with their arguments, e.g. @Given("I am on welcome screen")
+    private static String stripAnnotations(String text, List<String> annotations) {
+        int i = 0;
+        while (true) {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i >= text.length() || text.charAt(i) != '@' || text.startsWith("@interface", i)) {
+                return text.substring(i);
+            }
+            int start = i++;
+            while (i < text.length() && (Character.isJavaIdentifierPart(text.charAt(i)) || text.charAt(i) == '.')) {
+                i++;
+            }
+            int afterName = i;
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i < text.length() && text.charAt(i) == '(') {
+                int open = 0;
+                for (; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == '"' || c == '\'') {
+                        i = skipLiteral(text, i) - 1;
+                    } else if (c == '(') {
+                        open++;
+                    } else if (c == ')' && --open == 0) {
+                        i++;
+                        break;
+                    }
+                }
+            } else {
+                i = afterName;
+            }
+            if (annotations != null) {
+                annotations.add(text.substring(start, i));
+            }
+        }
+    }
+
+    // Index just past the closing quote of the literal starting at start; text blocks included
+    private static int skipLiteral(String source, int start) {
+        char quote = source.charAt(start);
+        if (quote == '"' && source.startsWith("\"\"\"", start)) {
+            int end = source.indexOf("\"\"\"", start + 3);
+            return end < 0 ? source.length() : end + 3;
+        }
+        for (int i = start + 1; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == quote || c == '\n') {
+                return i + 1;
+            }
+        }
+        return source.length();
+    }
+
+    private static int count(String source, int from, int to, char c) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (source.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
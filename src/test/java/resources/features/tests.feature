@@ -9,3 +9,13 @@ Feature: Amtrak App Feature
     Given I am on welcome screen
     When I tap on skip button
     Then Schedule screen is opened
+
+  Scenario: Welcome Page Test 003
+    Given I am on welcome screen
+    Then welcome slides show the expected titles
+
+  Scenario: Welcome Page Test 004
+    Given I am on welcome screen
+    When I swipe through 2 welcome slides
+    And I tap on skip button
+    Then Schedule screen is opened
@@ -0,0 +1,45 @@
+package runner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+// Thin client for RunnerDaemon. Needs nothing but the JDK, so it starts in well under a second:
+//   java -cp target/test-classes runner.RunnerClient --tags @smoke
+//   java -cp target/test-classes runner.RunnerClient src/test/java/resources/features/tests.feature:3
+//   java -cp target/test-classes runner.RunnerClient stop
+public class RunnerClient {
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(System.getProperty("runner.port", String.valueOf(RunnerDaemon.DEFAULT_PORT)));
+        boolean stop = args.length == 1 && RunnerDaemon.STOP_COMMAND.equals(args[0]);
+        String request = stop ? RunnerDaemon.STOP_COMMAND : RunnerDaemon.RUN_COMMAND + (args.length == 0 ? "" : "\t" + String.join("\t", args));
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            out.println(request);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                int marker = line.indexOf(RunnerDaemon.EXIT_MARKER);
+                if (marker >= 0) {
+                    if (marker > 0) {
+                        System.out.println(line.substring(0, marker));
+                    }
+                    System.exit(Integer.parseInt(line.substring(marker + RunnerDaemon.EXIT_MARKER.length()).trim()));
+                }
+                System.out.println(line);
+            }
+            System.err.println("!!! RunnerClient: Daemon closed the connection without an exit status");
+            System.exit(3);
+        } catch (ConnectException e) {
+            System.err.println("!!! RunnerClient: No runner daemon on port " + port + ". Start it with: mvn -Prunner test-compile exec:exec");
+            System.exit(4);
+        }
+    }
+}
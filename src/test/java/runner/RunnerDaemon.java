@@ -0,0 +1,194 @@
+package runner;
+
+import base.BaseTest;
+import base.ResetStrategy;
+import base.SessionPool;
+import reports.ExtentManager;
+import screens.Locator;
+import screens.WaitEngine;
+import support.CommandMetrics;
+import support.PhaseTimings;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Keeps the JVM, the Appium server and a pooled session alive between runs.
+// RunnerClient submits Cucumber arguments; the output is streamed back and the exit status is returned.
+public class RunnerDaemon {
+
+    public static final int DEFAULT_PORT = 4799;
+    public static final String RETAIN_PROPERTY = "runner.retain";
+    static final String EXIT_MARKER = "__RUNNER_EXIT__ ";
+    static final String STOP_COMMAND = "stop";
+    static final String RUN_COMMAND = "run";
+
+    private static final String FEATURES = "src/test/java/resources/features";
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(System.getProperty("runner.port", String.valueOf(DEFAULT_PORT)));
+        System.setProperty(RETAIN_PROPERTY, "true");
+
+        System.out.println("--- RunnerDaemon: Starting Appium server(s) ---");
+        BaseTest.startServerLogic();
+        warmUpSession();
+
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("--- RunnerDaemon: Ready on port " + port + " ---");
+            while (true) {
+                try (Socket client = server.accept()) {
+                    if (!handle(client)) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    System.err.println("!!! RunnerDaemon: Client connection failed: " + e.getMessage());
+                }
+            }
+        } finally {
+            System.out.println("--- RunnerDaemon: Shutting down ---");
+            BaseTest.shutdownSessionPoolLogic();
+            BaseTest.stopServerLogic();
+        }
+    }
+
+    // Opens one session up front and parks it in the pool, so the first submitted scenario starts warm
+    private static void warmUpSession() {
+        if (!SessionPool.isEnabled()) {
+            System.out.println("--- RunnerDaemon: Session reuse is off, sessions are created per scenario.");
+            return;
+        }
+        try {
+            BaseTest.setupDriverLogic();
+            BaseTest.releaseDriverLogic(false);
+        } catch (Exception e) {
+            System.err.println("!!! RunnerDaemon: Could not warm up a session: " + e.getMessage());
+        }
+    }
+
+    // Returns false once the client asked the daemon to stop
+    private static boolean handle(Socket client) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+        String request = in.readLine();
+        OutputStream raw = client.getOutputStream();
+        PrintStream out = new PrintStream(raw, true, StandardCharsets.UTF_8);
+        if (request == null) {
+            return true;
+        }
+        List<String> words = request.isEmpty() ? List.of() : Arrays.asList(request.split("\t"));
+        if (!words.isEmpty() && STOP_COMMAND.equals(words.get(0))) {
+            out.println("--- RunnerDaemon: Stopping");
+            out.println(EXIT_MARKER + 0);
+            return false;
+        }
+        List<String> cucumberArgs = words.isEmpty() || !RUN_COMMAND.equals(words.get(0)) ? words : words.subList(1, words.size());
+        int status = run(cucumberArgs, raw);
+        out.println();
+        out.println(EXIT_MARKER + status);
+        return true;
+    }
+
+    // One run at a time: stdout and stderr are shared by the whole JVM
+    private static synchronized int run(List<String> requested, OutputStream client) {
+        List<String> args = new ArrayList<>(List.of(
+                "--glue", "stepdefinitions",
+                "--plugin", "pretty",
+                "--plugin", "html:target/cucumber-reports.html",
+                "--plugin", "json:target/cucumber.json",
+                "--monochrome"));
+        args.addAll(requested);
+        if (requested.stream().noneMatch(RunnerDaemon::isFeaturePath)) {
+            args.add(FEATURES);
+        }
+        System.out.println("--- RunnerDaemon: Running " + args);
+        startRun();
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        System.setOut(new PrintStream(new Tee(originalOut, client), true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new Tee(originalErr, client), true, StandardCharsets.UTF_8));
+        long start = System.nanoTime();
+        byte status;
+        try {
+            status = io.cucumber.core.cli.Main.run(args.toArray(new String[0]), Thread.currentThread().getContextClassLoader());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            status = 2;
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+        System.out.println("--- RunnerDaemon: Run finished with status " + status + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return status;
+    }
+
+    // Stats, timings and the report are static and the JVM stays up, so each run starts them over to report only itself
+    private static void startRun() {
+        ExtentManager.newReport();
+        WaitEngine.resetSummaries();
+        Locator.resetStats();
+        PhaseTimings.reset();
+        ResetStrategy.resetTimings();
+        CommandMetrics.reset();
+    }
+
+    private static boolean isFeaturePath(String arg) {
+        if (arg.startsWith("-")) {
+            return false;
+        }
+        String path = arg.replaceAll("(:\\d+)+$", "");
+        return path.endsWith(".feature") || new File(path).isDirectory();
+    }
+
+    // Writes to the daemon's own console and to the client; a client that went away only stops receiving
+    private static class Tee extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+        private boolean secondOpen = true;
+
+        Tee(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            if (secondOpen) {
+                try {
+                    second.write(b, off, len);
+                } catch (IOException e) {
+                    secondOpen = false;
+                }
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            first.flush();
+            if (secondOpen) {
+                try {
+                    second.flush();
+                } catch (IOException e) {
+                    secondOpen = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package screens;
+
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+// What each page XPath becomes in the WebView; a wrong translation would click a different element than the XPath names
+public class LocatorTest {
+
+    @Test
+    public void pageLocatorsTranslate() {
+        Assert.assertEquals(Locator.toCss("//ion-slides"), "ion-slides");
+        Assert.assertEquals(Locator.toCss("//ion-button[@id=\"skip_tutorial_btn\"]"), "ion-button#skip_tutorial_btn");
+        Assert.assertEquals(Locator.toCss("//ion-segment-button[@value=\"favorites\"]"), "ion-segment-button[value=\"favorites\"]");
+    }
+
+    @Test
+    public void descendantAndChildSteps() {
+        Assert.assertEquals(Locator.toCss("//ion-slide//h2"), "ion-slide h2");
+        Assert.assertEquals(Locator.toCss("//ion-list/ion-item"), "ion-list > ion-item");
+        Assert.assertEquals(Locator.toCss("//ion-list/ion-item//ion-label"), "ion-list > ion-item ion-label");
+    }
+
+    @Test
+    public void anyElementWithPredicateDropsTheStar() {
+        Assert.assertEquals(Locator.toCss("//*[@id='menu']"), "#menu");
+        Assert.assertEquals(Locator.toCss("//*[@role='button']"), "[role=\"button\"]");
+        Assert.assertEquals(Locator.toCss("//div/*"), "div > *");
+    }
+
+    @Test
+    public void idThatIsNoCssIdentifierStaysAnAttribute() {
+        Assert.assertEquals(Locator.toCss("//div[@id='1st']"), "div[id=\"1st\"]");
+        Assert.assertEquals(Locator.toCss("//div[@id='a.b']"), "div[id=\"a.b\"]");
+    }
+
+    @Test
+    public void attributeFunctionsAndPresence() {
+        Assert.assertEquals(Locator.toCss("//ion-item[contains(@class, 'active')]"), "ion-item[class*=\"active\"]");
+        Assert.assertEquals(Locator.toCss("//a[starts-with(@href,'/app')]"), "a[href^=\"/app\"]");
+        Assert.assertEquals(Locator.toCss("//input[@disabled]"), "input[disabled]");
+    }
+
+    @Test
+    public void conditionsJoinedWithAndCombine() {
+        Assert.assertEquals(Locator.toCss("//ion-button[@fill='clear' and  contains(@class,'skip')][@size='small']"),
+                "ion-button[fill=\"clear\"][class*=\"skip\"][size=\"small\"]");
+    }
+
+    @Test
+    public void andInsideAValueIsPartOfTheValue() {
+        Assert.assertEquals(Locator.toCss("//ion-button[@aria-label='Sign and submit']"), "ion-button[aria-label=\"Sign and submit\"]");
+    }
+
+    @Test
+    public void quotesAndBackslashesInValuesAreEscaped() {
+        Assert.assertEquals(Locator.toCss("//img[@alt='say \"hi\"']"), "img[alt=\"say \\\"hi\\\"\"]");
+        Assert.assertEquals(Locator.toCss("//span[@title=\"it's\"]"), "span[title=\"it's\"]");
+        Assert.assertEquals(Locator.toCss("//span[@data-path='C:\\dir']"), "span[data-path=\"C:\\\\dir\"]");
+    }
+
+    @Test
+    public void pathsWithoutCssEquivalentFallBack() {
+        String[] xpaths = {
+                "//ion-slide[contains(@class, 'swiper-slide-active') and .//h2[text()=' Welcome to ']]",
+                "//h2[text()='Welcome']",
+                "//ion-item[2]",
+                "//ion-item[last()]",
+                "//ion-item[@a='x' or @b='y']",
+                "//ion-item[contains(@a,'x') or contains(@b,'y')]",
+                "//ion-item[not(@disabled)]",
+                "//ion-label[contains(text(), 'Ionic')]",
+                "//ion-item/..",
+                "(//ion-item)[1]",
+                "//a | //b",
+                ".//ion-item",
+                "/html/body",
+                "//svg:path[@d='M0']",
+                "//span[@title='a]b']",
+                ""
+        };
+        for (String xpath : xpaths) {
+            Assert.assertNull(Locator.toCss(xpath), xpath);
+        }
+    }
+
+    @Test
+    public void webViewUsesCssWhenThereIsOne() {
+        Locator locator = Locator.xpath("Test.skip", "//ion-button[@id='skip']");
+        Assert.assertEquals(locator.getCss(), "ion-button#skip");
+        Assert.assertEquals(locator.webViewStrategy(), By.cssSelector("ion-button#skip"));
+    }
+
+    @Test
+    public void webViewFallsBackToTheXpath() {
+        String xpath = "//h2[text()='Welcome']";
+        Locator locator = Locator.xpath("Test.title", xpath);
+        Assert.assertNull(locator.getCss());
+        Assert.assertEquals(locator.webViewStrategy(), By.xpath(xpath));
+    }
+}
@@ -1,6 +1,5 @@
 package stepdefinitions;
 
-import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
 
@@ -9,86 +8,158 @@ import io.cucumber.java.BeforeAll;
 import io.cucumber.java.Scenario;
 import io.cucumber.java.After;
 import io.cucumber.java.AfterAll;
+import io.cucumber.java.AfterStep;
 
 import reports.ExtentManager;
+import reports.ExtentTestManager;
+import reports.ScreenRecorder;
+import reports.ScreenshotPipeline;
+import screens.Locator;
+import screens.WaitEngine;
+import support.CommandMetrics;
+import support.ContextSwitcher;
 import support.DriverMethods;
+import support.PhaseTimings;
+import support.ServerTimeAttribution;
+import support.TestProperties;
 
 import base.BaseTest;
+import base.RerunStage;
+import base.ResetStrategy;
 
+import java.io.File;
 import java.net.MalformedURLException;
+import java.util.concurrent.TimeUnit;
 
 public class Hooks {
 
-    private static ExtentReports extent;
-    private static ThreadLocal<ExtentTest> extentTest = new ThreadLocal<>();
-
     @BeforeAll
     public static void initializeTestRun() throws MalformedURLException {
         System.out.println("--- Hooks @BeforeAll: Initializing Test Run ---");
         // BaseTest.loadPropertiesLogic();
         BaseTest.startServerLogic();
+        ExtentManager.startBackgroundFlush(Long.parseLong(TestProperties.getProperty("reportFlushSeconds", "30")));
         System.out.println("--- Hooks @BeforeAll: Initialization Complete ---");
     }
 
     @Before
     public void beforeScenario(Scenario scenario) throws MalformedURLException {
         System.out.println("--- Hooks @Before Scenario: " + scenario.getName() + " ---");
-        
+        CommandMetrics.setScenario(scenario.getName());
+        ServerTimeAttribution.startScenario();
+
         BaseTest.setupDriverLogic();
-        extent = ExtentManager.createExtentReports();
-        ExtentTest test = extent.createTest(scenario.getName() + " | Thread: " + Thread.currentThread().threadId());
-        extentTest.set(test);
-        test.log(Status.INFO, "Scenario Started");
+        ContextSwitcher.resetRoundTrips();
+        BaseTest.getSession().getWaits().drainRecords();
+        BaseTest.getSession().getWaits().getCache().resetStats();
+        String testName = (RerunStage.isRerunning() ? "Rerun: " : "") + scenario.getName();
+        ExtentTestManager.startTest(testName + " | Thread: " + Thread.currentThread().threadId(), "");
+        ExtentTestManager.log(Status.INFO, "Scenario Started");
+        try {
+            // Cached per device, so only the first scenario on a device pays for the lookup
+            ExtentTestManager.assignDevice(DriverMethods.getDeviceInfo());
+        } catch (Exception e) {
+            System.err.println("!!! Could not read device info: " + e.getMessage());
+        }
 
-        BaseTest.resetApplicationStateLogic();
+        BaseTest.resetApplicationStateLogic(ResetStrategy.forTags(scenario.getSourceTagNames()));
+        ScreenRecorder.startScenario(BaseTest.getDriver());
         System.out.println("--- Hooks @Before Scenario: Setup Complete ---");
     }
 
+    @AfterStep
+    public void afterStep() {
+        ScreenRecorder.onStepFinished(BaseTest.getDriver());
+    }
+
     @After
     public void afterScenario(Scenario scenario) {
         System.out.println("--- Hooks @After Scenario: " + scenario.getName() + " ---");
-        ExtentTest test = extentTest.get();
+        ExtentTest test = ExtentTestManager.getTest();
         if (test == null) {
              System.err.println("!!! ERROR in Hooks @After: ExtentTest is null for scenario: " + scenario.getName());
+             if (scenario.isFailed()) {
+                 RerunStage.recordFailure();
+             }
+             BaseTest.releaseDriverLogic(scenario.isFailed());
              return;
         }
 
         if (scenario.isFailed()) {
-            test.log(Status.FAIL, "Scenario Failed. Status: " + scenario.getStatus());
-            test.fail(scenario.getStatus().toString()); // Optionally add failure details
+            RerunStage.recordFailure();
+            ExtentTestManager.log(Status.FAIL, "Scenario Failed. Status: " + scenario.getStatus());
+            ExtentTestManager.log(Status.FAIL, scenario.getStatus().toString()); // Optionally add failure details
             try {
-                if (BaseTest.driver != null && BaseTest.driver.getSessionId() != null) {
-                    String screenshot = DriverMethods.getScreenshot();
-                    if (screenshot != null && !screenshot.isEmpty()) {
-                        test.addScreenCaptureFromBase64String(screenshot, "Failure Screenshot");
-                    } else {
-                        test.log(Status.WARNING, "Could not capture screenshot (empty result).");
-                    }
+                if (BaseTest.getDriver() != null && BaseTest.getDriver().getSessionId() != null) {
+                    String screenshot = DriverMethods.captureScreenshot();
+                    ExtentTestManager.addScreenCaptureFromPath(screenshot, "Failure Screenshot");
                 } else {
-                     test.log(Status.WARNING, "Driver/Session not available, cannot take screenshot.");
+                     ExtentTestManager.log(Status.WARNING, "Driver/Session not available, cannot take screenshot.");
                 }
             } catch (Exception e) {
                 System.err.println("!!! Error taking screenshot in Hooks @After: " + e.getMessage());
-                test.log(Status.WARNING, "Exception occurred during screenshot capture: " + e.getMessage());
+                ExtentTestManager.log(Status.WARNING, "Exception occurred during screenshot capture: " + e.getMessage());
             }
         } else {
-            test.log(Status.PASS, "Scenario Passed");
+            ExtentTestManager.log(Status.PASS, "Scenario Passed");
+        }
+        String video = ScreenRecorder.finishScenario(BaseTest.getDriver(), scenario.getName(), scenario.isFailed());
+        if (video != null) {
+            ExtentTestManager.log(Status.INFO, "<a href='" + video + "'>Screen recording</a> of the last seconds before the failure");
         }
 
-        extentTest.remove();
+        int contextRoundTrips = ContextSwitcher.getRoundTrips();
+        System.out.println("--- Hooks @After Scenario: Context round trips: " + contextRoundTrips);
+        ExtentTestManager.log(Status.INFO, "Context round trips: " + contextRoundTrips);
+        if (BaseTest.getSession() != null) {
+            for (WaitEngine.WaitRecord record : BaseTest.getSession().getWaits().drainRecords()) {
+                ExtentTestManager.log(Status.INFO, "Wait " + record);
+            }
+            System.out.println("--- Hooks @After Scenario: Element cache: " + BaseTest.getSession().getWaits().getCache());
+        }
+
+        String feature = scenario.getUri().toString();
+        String location = feature.substring(feature.lastIndexOf('/') + 1) + ":" + scenario.getLine()
+                + (RerunStage.isRerunning() ? ":rerun" : "");
+        String commandTime = ServerTimeAttribution.writeTimeline(scenario.getName(), location, new File("target/timelines"));
+        ExtentTestManager.log(Status.INFO, "Command time: " + commandTime);
+
+        ExtentTestManager.endTest();
         System.out.println("--- Hooks @After Scenario: Teardown Complete ---");
-        BaseTest.quitDriverLogic();
+        BaseTest.releaseDriverLogic(scenario.isFailed());
     }
 
     @AfterAll
     public static void cleanupTestRun() {
         System.out.println("--- Hooks @AfterAll: Cleaning Up Test Run ---");
-        BaseTest.stopServerLogic();
-        if (extent != null) {
-            System.out.println("--- Hooks @AfterAll: Flushing Extent Reports ---");
-            extent.flush();
-            System.out.println("--- Hooks @AfterAll: Reports Flushed ---");
+        WaitEngine.getSummaries().forEach((name, summary) ->
+                System.out.println("--- Hooks @AfterAll: Wait " + name + ": " + summary));
+        Locator.getStats().forEach(entry ->
+                System.out.println("--- Hooks @AfterAll: Locator " + entry.getKey() + ": " + entry.getValue()));
+        PhaseTimings.getPhases().forEach((phase, timing) ->
+                System.out.println(String.format("--- Hooks @AfterAll: Phase %s: %d time(s), avg %.0f ms, max %.0f ms",
+                        phase, timing.getCount(), timing.getMeanMillis(), timing.getMaxMillis())));
+        ResetStrategy.getTimings().forEach((strategy, timing) -> {
+            if (timing.getCount() > 0) {
+                System.out.println(String.format("--- Hooks @AfterAll: Reset %s: %d time(s), avg %.0f ms, p95 %.0f ms",
+                        strategy, timing.getCount(), timing.getMeanMillis(), timing.getPercentileMillis(95)));
+            }
+        });
+        if (BaseTest.isRetained()) {
+            System.out.println("--- Hooks @AfterAll: Keeping Appium server and idle sessions for the next run ---");
+        } else if (RerunStage.isPending()) {
+            System.out.println("--- Hooks @AfterAll: Keeping Appium server and idle sessions for the failed-scenario rerun ---");
+        } else {
+            BaseTest.shutdownSessionPoolLogic();
+            BaseTest.stopServerLogic();
+            ServerTimeAttribution.stopAll();
         }
+        CommandMetrics.export(new File("target/metrics"));
+        ScreenshotPipeline.awaitPending(30, TimeUnit.SECONDS);
+        ScreenRecorder.awaitPending(120, TimeUnit.SECONDS);
+        System.out.println("--- Hooks @AfterAll: Flushing Extent Reports ---");
+        ExtentManager.stopBackgroundFlush();
+        System.out.println("--- Hooks @AfterAll: Reports Flushed ---");
         System.out.println("--- Hooks @AfterAll: Cleanup Complete ---");
     }
 }
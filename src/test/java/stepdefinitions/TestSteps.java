@@ -8,22 +8,35 @@ import org.testng.Assert;
 import org.testng.annotations.Listeners;
 
 import base.BaseTest;
+import testdata.Data;
+
+import java.util.Arrays;
 
 @Listeners
 public class TestSteps extends BaseTest {
 
    @Given("I am on welcome screen")
     public void i_am_on_welcome_screen() {
-        Assert.assertTrue(welcomePage.welcomePageLoaded(), "Welcome page isn't loaded");
+        Assert.assertTrue(getWelcomePage().welcomePageLoaded(), "Welcome page isn't loaded");
     }
      
+    @Then("welcome slides show the expected titles")
+    public void welcome_slides_show_the_expected_titles() {
+        Assert.assertEquals(getWelcomePage().slideTitles(), Arrays.asList(Data.welcomeSlideTitles), "Welcome slide titles don't match");
+    }
+
+    @When("I swipe through {int} welcome slides")
+    public void i_swipe_through_welcome_slides(int count) {
+        getWelcomePage().swipeThroughSlides(count);
+    }
+
     @When("I tap on skip button")
     public void i_tap_on_skip_button() {
-        welcomePage.clickSkipButton();    
+        getWelcomePage().clickSkipButton();    
     }
 
     @Then("Schedule screen is opened")
     public void schedule_screen_is_opened() {
-        Assert.assertTrue(schedulePage.schedulePageLoaded(), "Schedule page isn't loaded");   
+        Assert.assertTrue(getSchedulePage().schedulePageLoaded(), "Schedule page isn't loaded");   
     }
 }
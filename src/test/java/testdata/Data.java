@@ -2,9 +2,16 @@ package testdata;
 
 import dataObjects.Credentials;
 import org.testng.annotations.DataProvider;
+import support.TestProperties;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
 
 public class Data {
     public static String[] expectedTitles = {"FULLY OPEN SOURCE", "GREAT COMMUNITY", "JS.FOUNDATION", "SUPPORT VIDEOS", "EXTENDABLE", "COMPATIBLE"};
+    // Tutorial slides of the Ionic Conference app (com.ionicframework.conferenceapp), as rendered innerText
+    public static String[] welcomeSlideTitles = {"Welcome to ICA", "What is Ionic?", "What is Ionic Appflow?", "Ready to Play?"};
 
     @DataProvider(name = "valid-login-signup")
     public static Object[][] getValidCredentials() {
@@ -61,4 +68,33 @@ public class Data {
                 {defaultDropdownOption, "This app is awesome"}
         };
     }
+
+    // Rows are read from the file as TestNG asks for them, so the dataset never sits in memory.
+    // Not parallel: TestNG drains a parallel provider's iterator up front. Parallelism comes from -Dshard=<index>/<count> forks.
+    // -DloginData / -DsignupData point at other files (.csv, .json, .jsonl)
+    @DataProvider(name = "login-stream")
+    public static Iterator<Object[]> streamLoginCredentials() {
+        return new RowStream<>(dataFile("loginData", "login-credentials.csv"), Data::toCredentials, Shard.fromProperties());
+    }
+
+    @DataProvider(name = "signup-stream")
+    public static Iterator<Object[]> streamSignUpCredentials() {
+        return new RowStream<>(dataFile("signupData", "signup-credentials.jsonl"), Data::toCredentials, Shard.fromProperties());
+    }
+
+    private static File dataFile(String property, String defaultName) {
+        return new File(TestProperties.getProperty(property, "src/test/java/resources/testdata/" + defaultName));
+    }
+
+    static Credentials toCredentials(Map<String, String> row) {
+        String repeatPassword = row.get("repeatPassword");
+        if (repeatPassword != null && !repeatPassword.isEmpty()) {
+            return new Credentials(row.get("email"), row.get("password"), repeatPassword, row.get("message"));
+        }
+        String message = row.get("message");
+        if (message != null && !message.isEmpty()) {
+            return new Credentials(row.get("email"), row.get("password"), message);
+        }
+        return new Credentials(row.get("email"), row.get("password"));
+    }
 }
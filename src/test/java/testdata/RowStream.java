@@ -0,0 +1,176 @@
+package testdata;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonInput;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+// Reads data rows one at a time from a CSV (with a header line), JSONL or JSON array file.
+// Only this shard's rows are returned: row i belongs to shard i % count, so shards never overlap.
+public class RowStream<T> implements Iterator<Object[]>, AutoCloseable {
+
+    private static final Json JSON = new Json();
+
+    private final BufferedReader reader;
+    private final JsonInput jsonArray;
+    private final List<String> header;
+    private final Function<Map<String, String>, T> mapper;
+    private final int shardIndex;
+    private final int shardCount;
+    private long rowIndex = -1;
+    private Object[] next;
+    private boolean closed;
+
+    public RowStream(File file, Function<Map<String, String>, T> mapper, Shard shard) {
+        this.mapper = mapper;
+        this.shardIndex = shard.getIndex();
+        this.shardCount = shard.getCount();
+        try {
+            reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+            String name = file.getName().toLowerCase();
+            if (name.endsWith(".csv")) {
+                String headerLine = reader.readLine();
+                header = headerLine == null ? List.of() : parseCsvLine(headerLine);
+                jsonArray = null;
+            } else if (name.endsWith(".json")) {
+                header = null;
+                jsonArray = JSON.newInput(reader);
+                jsonArray.beginArray();
+            } else if (name.endsWith(".jsonl")) {
+                header = null;
+                jsonArray = null;
+            } else {
+                reader.close();
+                throw new IllegalArgumentException("Unsupported data file (use .csv, .json or .jsonl): " + file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open data file " + file, e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object[] row = next;
+        next = null;
+        return row;
+    }
+
+    // Skips other shards' rows without mapping them
+    private Object[] advance() {
+        try {
+            while (true) {
+                Map<String, String> fields = readRow();
+                if (fields == null) {
+                    close();
+                    return null;
+                }
+                rowIndex++;
+                if (rowIndex % shardCount == shardIndex) {
+                    return new Object[]{mapper.apply(fields)};
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Could not read data row " + (rowIndex + 1), e);
+        }
+    }
+
+    private Map<String, String> readRow() throws IOException {
+        if (jsonArray != null) {
+            if (!jsonArray.hasNext()) {
+                return null;
+            }
+            return stringValues(jsonArray.read(Json.MAP_TYPE));
+        }
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        if (header == null) {
+            return stringValues(JSON.toType(line, Json.MAP_TYPE));
+        }
+        List<String> values = parseCsvLine(line);
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            fields.put(header.get(i), i < values.size() ? values.get(i) : null);
+        }
+        return fields;
+    }
+
+    private static Map<String, String> stringValues(Map<String, Object> row) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        row.forEach((key, value) -> fields.put(key, value == null ? null : String.valueOf(value)));
+        return fields;
+    }
+
+    // Quoted fields may contain commas and doubled quotes; a field cannot span lines
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        values.add(field.toString());
+        return values;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (jsonArray != null) {
+                jsonArray.close();
+            }
+            reader.close();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("!!! RowStream: Could not close data file: " + e.getMessage());
+        }
+    }
+}
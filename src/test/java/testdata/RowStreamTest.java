@@ -0,0 +1,117 @@
+package testdata;
+
+import dataObjects.Credentials;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// No device needed: runs against temporary data files and the sample files under resources/testdata
+public class RowStreamTest {
+
+    private static File csvWithRows(int rows) throws IOException {
+        File file = File.createTempFile("rows", ".csv");
+        file.deleteOnExit();
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(",row ").append(i).append('\n');
+        }
+        Files.writeString(file.toPath(), csv, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> ids(File file, Shard shard) {
+        List<String> ids = new ArrayList<>();
+        try (RowStream<String> rows = new RowStream<>(file, row -> row.get("id"), shard)) {
+            while (rows.hasNext()) {
+                ids.add((String) rows.next()[0]);
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void mapsRowsOnlyWhenAsked() throws IOException {
+        AtomicInteger mapped = new AtomicInteger();
+        try (RowStream<Map<String, String>> rows = new RowStream<>(csvWithRows(100), row -> {
+            mapped.incrementAndGet();
+            return row;
+        }, new Shard(0, 1))) {
+            Assert.assertEquals(mapped.get(), 0, "Rows mapped before the first one was asked for");
+            Assert.assertTrue(rows.hasNext());
+            Assert.assertTrue(rows.hasNext());
+            Assert.assertEquals(mapped.get(), 1, "hasNext() should read one row ahead at most");
+            rows.next();
+            rows.next();
+            Assert.assertEquals(mapped.get(), 2);
+        }
+    }
+
+    @Test
+    public void skipsOtherShardsRowsWithoutMappingThem() throws IOException {
+        AtomicInteger mapped = new AtomicInteger();
+        try (RowStream<String> rows = new RowStream<>(csvWithRows(9), row -> {
+            mapped.incrementAndGet();
+            return row.get("id");
+        }, new Shard(2, 3))) {
+            Assert.assertEquals(rows.next()[0], "2");
+            Assert.assertEquals(mapped.get(), 1);
+        }
+    }
+
+    @Test
+    public void splitsRowsByIndexModuloCount() throws IOException {
+        File file = csvWithRows(10);
+        Assert.assertEquals(ids(file, new Shard(0, 3)), List.of("0", "3", "6", "9"));
+        Assert.assertEquals(ids(file, new Shard(1, 3)), List.of("1", "4", "7"));
+        Assert.assertEquals(ids(file, new Shard(2, 3)), List.of("2", "5", "8"));
+        Assert.assertEquals(ids(file, new Shard(0, 1)).size(), 10);
+    }
+
+    @Test
+    public void splitIsTheSameOnEveryRead() throws IOException {
+        File file = csvWithRows(25);
+        for (int index = 0; index < 4; index++) {
+            Assert.assertEquals(ids(file, new Shard(index, 4)), ids(file, new Shard(index, 4)));
+        }
+    }
+
+    @Test
+    public void readsQuotedCsvFields() {
+        Assert.assertEquals(RowStream.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\",,"), List.of("a", "b, c", "say \"hi\"", "", ""));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsShardIndexOutsideCount() {
+        new Shard(3, 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsUnsupportedDataFile() throws IOException {
+        File file = File.createTempFile("rows", ".txt");
+        file.deleteOnExit();
+        new RowStream<>(file, row -> row, new Shard(0, 1));
+    }
+
+    // Once per row of the sample files, read through the streaming providers themselves
+    @Test(dataProvider = "login-stream", dataProviderClass = Data.class)
+    public void sampleLoginRowsAreComplete(Credentials credentials) {
+        Assert.assertNotNull(credentials.getEmail(), "email");
+        Assert.assertNotNull(credentials.getPassword(), "password");
+        Assert.assertNotNull(credentials.getMessage(), "message");
+    }
+
+    @Test(dataProvider = "signup-stream", dataProviderClass = Data.class)
+    public void sampleSignUpRowsAreComplete(Credentials credentials) {
+        Assert.assertNotNull(credentials.getEmail(), "email");
+        Assert.assertNotNull(credentials.getRepeatPassword(), "repeatPassword");
+        Assert.assertNotNull(credentials.getMessage(), "message");
+    }
+}
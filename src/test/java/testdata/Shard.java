@@ -0,0 +1,40 @@
+package testdata;
+
+import support.TestProperties;
+
+// This fork's share of the data rows, given as -Dshard=<index>/<count> (e.g. 0/4 .. 3/4); all rows when unset
+public class Shard {
+
+    private final int index;
+    private final int count;
+
+    public Shard(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    public static Shard fromProperties() {
+        String shard = TestProperties.getProperty("shard", "0/1");
+        String[] parts = shard.split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("shard must look like <index>/<count>, got: " + shard);
+        }
+        return new Shard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}